@@ -0,0 +1,116 @@
+package org.sealang.sinterp;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+* 리졸브와 최적화까지 끝난 AST 를 스크립트 옆의 <script>.sic 에 저장해 두고, 같은 스크립트를
+* 다시 실행할 때 스캔, 파싱, 인라이닝, 리졸브, 최적화를 건너뛰고 바로 읽어 실행한다.
+*
+* 파일 형식 : 헤더(MAGIC, VERSION, AstCodec.SCHEMA, 최적화 옵션, 소스의 SHA-256,
+* 사용한 루프 번호 수) 뒤에 최상위 문장들. 헤더가 하나라도 다르면 캐시를 버리고 새로 만든다.
+* 노드 정의가 바뀌면 SCHEMA 가 바뀌고, 리졸버나 최적화 패스의 결과가 바뀌면 VERSION 을 올린다.
+*
+* 캐시는 임시 파일에 쓴 뒤 바꿔치기하므로 같은 스크립트를 동시에 실행해도 읽는 쪽이 반쯤 쓴
+* 파일을 보지 않는다. 읽기나 쓰기에 실패하면 캐시 없이 실행한다. -Dsinterp.astCache=false 로 끈다.
+* */
+final class AstCache {
+    private static final int MAGIC = 0x53494143; // "SIAC"
+    static final int VERSION = 2;
+
+    private final Path path;
+    private final byte[] digest;
+    private final int options;
+
+    // content 는 스크립트 파일의 내용, options 는 결과 AST 를 바꾸는 옵션의 비트들
+    AstCache(Path script, byte[] content, int options) {
+        this.path = script.resolveSibling(script.getFileName() + ".sic");
+        this.digest = sha256(content);
+        this.options = options;
+    }
+
+    // 캐시된 최상위 문장들. 리졸브 깊이는 interpreter 에 등록된다. 캐시가 없거나 맞지 않으면 null
+    List<Stmt> load(Interpreter interpreter, char[] source) {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (IOException e) {
+            return null;
+        }
+
+        try {
+            AstInput in = new AstInput(bytes, source, interpreter);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION ||
+                    in.readInt() != AstCodec.SCHEMA || in.readInt() != options ||
+                    !Arrays.equals(in.readBytes(digest.length), digest))
+                return null;
+            int loops = in.readInt();
+
+            AstCodec.Reader reader = new AstCodec.Reader(in);
+            int size = in.readInt();
+            List<Stmt> statements = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                statements.add(reader.readStmt());
+            }
+            if (!in.isAtEnd())
+                return null;
+
+            LoopOptimizer.reserveLoopIds(loops);
+            return statements;
+        } catch (IllegalStateException | IndexOutOfBoundsException e) {
+            return null;
+        }
+    }
+
+    void store(Interpreter interpreter, List<Stmt> statements) {
+        AstOutput out = new AstOutput(interpreter);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(AstCodec.SCHEMA);
+        out.writeInt(options);
+        out.writeBytes(digest);
+        out.writeInt(LoopOptimizer.loopIdsUsed());
+
+        try {
+            AstCodec.Writer writer = new AstCodec.Writer(out);
+            out.writeInt(statements.size());
+            for (Stmt statement : statements) {
+                writer.write(statement);
+            }
+        } catch (IllegalArgumentException e) {
+            return; // 캐시할 수 없는 값
+        }
+
+        Path temporary = null;
+        try {
+            temporary = Files.createTempFile(path.toAbsolutePath().getParent(),
+                    path.getFileName().toString(), ".tmp");
+            Files.write(temporary, out.toByteArray());
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | UnsupportedOperationException e) {
+            // 쓸 수 없는 디렉터리 등. 다음 실행도 캐시 없이 한다.
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // 모든 JDK 가 지원해야 하는 알고리즘
+        }
+    }
+}
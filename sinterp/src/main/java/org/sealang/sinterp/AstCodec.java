@@ -0,0 +1,515 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// GenerateAst 가 만든 AST 직렬화 코드. 노드마다 종류 번호(0 은 null)와 필드를 순서대로 쓴다.
+// 토큰, 값, 리졸브 깊이, 파싱을 미룬 본문은 AstOutput, AstInput 이 처리한다.
+final class AstCodec {
+    // 노드 정의가 바뀌면 달라진다. 캐시에 기록해서 다른 정의로 만든 캐시를 버린다.
+    static final int SCHEMA = -1914804437;
+
+    private AstCodec() {}
+
+    static final class Writer implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
+        private final AstOutput out;
+
+        Writer(AstOutput out) {
+            this.out = out;
+        }
+
+        void write(Expr expr) {
+            if (expr == null) {
+                out.writeInt(0);
+                return;
+            }
+            expr.accept(this);
+            out.writeDepth(expr);
+        }
+
+        void write(Stmt stmt) {
+            if (stmt == null) {
+                out.writeInt(0);
+                return;
+            }
+            stmt.accept(this);
+        }
+
+        void writeExprs(List<Expr> exprs) {
+            out.writeInt(exprs.size());
+            for (Expr expr : exprs) {
+                write(expr);
+            }
+        }
+
+        void writeStmts(List<? extends Stmt> stmts) {
+            if (out.writeLazyBody(stmts))
+                return;
+            out.writeInt(stmts.size());
+            for (Stmt stmt : stmts) {
+                write(stmt);
+            }
+        }
+
+        void writeTokens(List<Token> tokens) {
+            out.writeInt(tokens.size());
+            for (Token token : tokens) {
+                out.writeToken(token);
+            }
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            out.writeInt(1);
+            out.writeToken(expr.name);
+            write(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            out.writeInt(2);
+            write(expr.left);
+            out.writeToken(expr.operator);
+            write(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            out.writeInt(3);
+            write(expr.callee);
+            out.writeToken(expr.paren);
+            writeExprs(expr.arguments);
+            return null;
+        }
+
+        @Override
+        public Void visitCompareConstExpr(Expr.CompareConst expr) {
+            out.writeInt(4);
+            out.writeToken(expr.name);
+            out.writeToken(expr.operator);
+            out.writeValue(expr.constant);
+            return null;
+        }
+
+        @Override
+        public Void visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+            out.writeInt(5);
+            out.writeToken(expr.name);
+            out.writeToken(expr.operator);
+            write(expr.value);
+            out.writeBoolean(expr.postfix);
+            return null;
+        }
+
+        @Override
+        public Void visitCompoundSetExpr(Expr.CompoundSet expr) {
+            out.writeInt(6);
+            write(expr.object);
+            out.writeToken(expr.name);
+            out.writeToken(expr.operator);
+            write(expr.value);
+            out.writeBoolean(expr.postfix);
+            return null;
+        }
+
+        @Override
+        public Void visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+            out.writeInt(7);
+            write(expr.object);
+            out.writeToken(expr.bracket);
+            write(expr.index);
+            out.writeToken(expr.operator);
+            write(expr.value);
+            out.writeBoolean(expr.postfix);
+            return null;
+        }
+
+        @Override
+        public Void visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+            out.writeInt(8);
+            write(expr.object);
+            out.writeToken(expr.name);
+            out.writeToken(expr.operator);
+            write(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            out.writeInt(9);
+            write(expr.object);
+            out.writeToken(expr.name);
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            out.writeInt(10);
+            write(expr.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitHoistedExpr(Expr.Hoisted expr) {
+            out.writeInt(11);
+            write(expr.expression);
+            out.writeInt(expr.loop);
+            out.writeInt(expr.slot);
+            return null;
+        }
+
+        @Override
+        public Void visitIncrementExpr(Expr.Increment expr) {
+            out.writeInt(12);
+            out.writeToken(expr.name);
+            out.writeToken(expr.operator);
+            out.writeValue(expr.delta);
+            return null;
+        }
+
+        @Override
+        public Void visitIndexExpr(Expr.Index expr) {
+            out.writeInt(13);
+            write(expr.object);
+            out.writeToken(expr.bracket);
+            write(expr.index);
+            return null;
+        }
+
+        @Override
+        public Void visitIndexSetExpr(Expr.IndexSet expr) {
+            out.writeInt(14);
+            write(expr.object);
+            out.writeToken(expr.bracket);
+            write(expr.index);
+            write(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitListLiteralExpr(Expr.ListLiteral expr) {
+            out.writeInt(15);
+            out.writeToken(expr.bracket);
+            writeExprs(expr.elements);
+            return null;
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            out.writeInt(16);
+            out.writeValue(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            out.writeInt(17);
+            write(expr.left);
+            out.writeToken(expr.operator);
+            write(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitSetExpr(Expr.Set expr) {
+            out.writeInt(18);
+            write(expr.object);
+            out.writeToken(expr.name);
+            write(expr.value);
+            return null;
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            out.writeInt(19);
+            out.writeToken(expr.keyword);
+            return null;
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            out.writeInt(20);
+            out.writeToken(expr.operator);
+            write(expr.right);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableExpr(Expr.Variable expr) {
+            out.writeInt(21);
+            out.writeToken(expr.name);
+            return null;
+        }
+
+        @Override
+        public Void visitBlockStmt(Stmt.Block stmt) {
+            out.writeInt(1);
+            writeStmts(stmt.statements);
+            return null;
+        }
+
+        @Override
+        public Void visitClassStmt(Stmt.Class stmt) {
+            out.writeInt(2);
+            out.writeToken(stmt.name);
+            writeStmts(stmt.methods);
+            return null;
+        }
+
+        @Override
+        public Void visitExpressionStmt(Stmt.Expression stmt) {
+            out.writeInt(3);
+            write(stmt.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitForInStmt(Stmt.ForIn stmt) {
+            out.writeInt(4);
+            out.writeToken(stmt.name);
+            write(stmt.iterable);
+            write(stmt.body);
+            return null;
+        }
+
+        @Override
+        public Void visitFunctionStmt(Stmt.Function stmt) {
+            out.writeInt(5);
+            out.writeToken(stmt.name);
+            writeTokens(stmt.params);
+            writeStmts(stmt.body);
+            out.writeBoolean(stmt.generator);
+            return null;
+        }
+
+        @Override
+        public Void visitHoistedWhileStmt(Stmt.HoistedWhile stmt) {
+            out.writeInt(6);
+            write(stmt.condition);
+            write(stmt.body);
+            out.writeInt(stmt.loop);
+            out.writeInt(stmt.slots);
+            return null;
+        }
+
+        @Override
+        public Void visitIfStmt(Stmt.If stmt) {
+            out.writeInt(7);
+            write(stmt.condition);
+            write(stmt.thenBranch);
+            write(stmt.elseBranch);
+            return null;
+        }
+
+        @Override
+        public Void visitPrintStmt(Stmt.Print stmt) {
+            out.writeInt(8);
+            write(stmt.expression);
+            return null;
+        }
+
+        @Override
+        public Void visitReturnStmt(Stmt.Return stmt) {
+            out.writeInt(9);
+            out.writeToken(stmt.keyword);
+            write(stmt.value);
+            return null;
+        }
+
+        @Override
+        public Void visitVarStmt(Stmt.Var stmt) {
+            out.writeInt(10);
+            out.writeToken(stmt.name);
+            write(stmt.initializer);
+            return null;
+        }
+
+        @Override
+        public Void visitWhileStmt(Stmt.While stmt) {
+            out.writeInt(11);
+            write(stmt.condition);
+            write(stmt.body);
+            return null;
+        }
+
+        @Override
+        public Void visitYieldStmt(Stmt.Yield stmt) {
+            out.writeInt(12);
+            out.writeToken(stmt.keyword);
+            write(stmt.value);
+            return null;
+        }
+    }
+
+    static final class Reader {
+        private final AstInput in;
+
+        Reader(AstInput in) {
+            this.in = in;
+        }
+
+        Expr readExpr() {
+            int kind = in.readInt();
+            Expr expr;
+            switch (kind) {
+                case 0:
+                    return null;
+                case 1:
+                    expr = new Expr.Assign(in.readToken(), readExpr());
+                    break;
+                case 2:
+                    expr = new Expr.Binary(readExpr(), in.readToken(), readExpr());
+                    break;
+                case 3:
+                    expr = new Expr.Call(readExpr(), in.readToken(), readExprs());
+                    break;
+                case 4:
+                    expr = new Expr.CompareConst(in.readToken(), in.readToken(), in.readValue());
+                    break;
+                case 5:
+                    expr = new Expr.CompoundAssign(in.readToken(), in.readToken(), readExpr(), in.readBoolean());
+                    break;
+                case 6:
+                    expr = new Expr.CompoundSet(readExpr(), in.readToken(), in.readToken(), readExpr(), in.readBoolean());
+                    break;
+                case 7:
+                    expr = new Expr.CompoundIndexSet(readExpr(), in.readToken(), readExpr(), in.readToken(), readExpr(), in.readBoolean());
+                    break;
+                case 8:
+                    expr = new Expr.FieldAddAssign(readExpr(), in.readToken(), in.readToken(), readExpr());
+                    break;
+                case 9:
+                    expr = new Expr.Get(readExpr(), in.readToken());
+                    break;
+                case 10:
+                    expr = new Expr.Grouping(readExpr());
+                    break;
+                case 11:
+                    expr = new Expr.Hoisted(readExpr(), in.readInt(), in.readInt());
+                    break;
+                case 12:
+                    expr = new Expr.Increment(in.readToken(), in.readToken(), in.readValue());
+                    break;
+                case 13:
+                    expr = new Expr.Index(readExpr(), in.readToken(), readExpr());
+                    break;
+                case 14:
+                    expr = new Expr.IndexSet(readExpr(), in.readToken(), readExpr(), readExpr());
+                    break;
+                case 15:
+                    expr = new Expr.ListLiteral(in.readToken(), readExprs());
+                    break;
+                case 16:
+                    expr = new Expr.Literal(in.readValue());
+                    break;
+                case 17:
+                    expr = new Expr.Logical(readExpr(), in.readToken(), readExpr());
+                    break;
+                case 18:
+                    expr = new Expr.Set(readExpr(), in.readToken(), readExpr());
+                    break;
+                case 19:
+                    expr = new Expr.This(in.readToken());
+                    break;
+                case 20:
+                    expr = new Expr.Unary(in.readToken(), readExpr());
+                    break;
+                case 21:
+                    expr = new Expr.Variable(in.readToken());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown Expr kind " + kind + ".");
+            }
+            in.readDepth(expr);
+            return expr;
+        }
+
+        Stmt readStmt() {
+            int kind = in.readInt();
+            Stmt stmt;
+            switch (kind) {
+                case 0:
+                    return null;
+                case 1:
+                    stmt = new Stmt.Block(readStmts());
+                    break;
+                case 2:
+                    stmt = new Stmt.Class(in.readToken(), readFunctions());
+                    break;
+                case 3:
+                    stmt = new Stmt.Expression(readExpr());
+                    break;
+                case 4:
+                    stmt = new Stmt.ForIn(in.readToken(), readExpr(), readStmt());
+                    break;
+                case 5:
+                    stmt = new Stmt.Function(in.readToken(), readTokens(), readStmts(), in.readBoolean());
+                    break;
+                case 6:
+                    stmt = new Stmt.HoistedWhile(readExpr(), readStmt(), in.readInt(), in.readInt());
+                    break;
+                case 7:
+                    stmt = new Stmt.If(readExpr(), readStmt(), readStmt());
+                    break;
+                case 8:
+                    stmt = new Stmt.Print(readExpr());
+                    break;
+                case 9:
+                    stmt = new Stmt.Return(in.readToken(), readExpr());
+                    break;
+                case 10:
+                    stmt = new Stmt.Var(in.readToken(), readExpr());
+                    break;
+                case 11:
+                    stmt = new Stmt.While(readExpr(), readStmt());
+                    break;
+                case 12:
+                    stmt = new Stmt.Yield(in.readToken(), readExpr());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown Stmt kind " + kind + ".");
+            }
+            return stmt;
+        }
+
+        List<Expr> readExprs() {
+            int size = in.readInt();
+            List<Expr> exprs = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                exprs.add(readExpr());
+            }
+            return exprs;
+        }
+
+        List<Stmt> readStmts() {
+            int size = in.readInt();
+            if (size < 0)
+                return in.readLazyBody();
+            List<Stmt> stmts = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                stmts.add(readStmt());
+            }
+            return stmts;
+        }
+
+        List<Stmt.Function> readFunctions() {
+            int size = in.readInt();
+            List<Stmt.Function> functions = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                functions.add((Stmt.Function) readStmt());
+            }
+            return functions;
+        }
+
+        List<Token> readTokens() {
+            int size = in.readInt();
+            List<Token> tokens = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                tokens.add(in.readToken());
+            }
+            return tokens;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.sealang.sinterp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/*
+* AstOutput 이 쓴 바이트를 읽는다. 읽은 리졸브 깊이는 바로 인터프리터에 등록하고,
+* 파싱을 미룬 본문은 source 의 같은 구간을 가리키는 LazyBody 로 만든다.
+*
+* 잘린 파일을 읽으면 ArrayIndexOutOfBoundsException 이, 형식이 맞지 않으면
+* IllegalStateException 이 난다. AstCache 는 둘 다 캐시가 없는 것으로 본다.
+* */
+final class AstInput {
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private final byte[] bytes;
+    private int position;
+    private final char[] source;
+    private final Interpreter interpreter;
+    private final List<Token> tokens = new ArrayList<>();
+    private final List<String> strings = new ArrayList<>();
+
+    AstInput(byte[] bytes, char[] source, Interpreter interpreter) {
+        this.bytes = bytes;
+        this.source = source;
+        this.interpreter = interpreter;
+    }
+
+    boolean isAtEnd() {
+        return position == bytes.length;
+    }
+
+    int readByte() {
+        return bytes[position++] & 0xFF;
+    }
+
+    byte[] readBytes(int length) {
+        byte[] values = new byte[length];
+        for (int i = 0; i < length; i++) {
+            values[i] = (byte) readByte();
+        }
+        return values;
+    }
+
+    int readInt() {
+        long value = readLong();
+        if (value != (int) value)
+            throw new IllegalStateException("Integer out of range.");
+        return (int) value;
+    }
+
+    long readLong() {
+        long zigzag = 0;
+        for (int shift = 0; ; shift += 7) {
+            if (shift > 63)
+                throw new IllegalStateException("Malformed integer.");
+            int b = readByte();
+            zigzag |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                break;
+        }
+        return (zigzag >>> 1) ^ -(zigzag & 1);
+    }
+
+    boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    String readString() {
+        int index = readInt();
+        if (index < strings.size())
+            return strings.get(index);
+        if (index != strings.size())
+            throw new IllegalStateException("Bad string reference.");
+
+        int length = readInt();
+        String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+        position += length;
+        strings.add(value);
+        return value;
+    }
+
+    Token readToken() {
+        int index = readInt();
+        if (index < tokens.size())
+            return tokens.get(index);
+        if (index != tokens.size())
+            throw new IllegalStateException("Bad token reference.");
+
+        TokenType type = TYPES[readInt()];
+        String lexeme = readString();
+        Object literal = readValue();
+        Token token = new Token(type, lexeme, literal, readInt());
+        tokens.add(token);
+        return token;
+    }
+
+    Object readValue() {
+        int tag = readByte();
+        switch (tag) {
+            case 0:
+                return null;
+            case 1:
+                return Boolean.TRUE;
+            case 2:
+                return Boolean.FALSE;
+            case 3:
+                return readLong();
+            case 4:
+                long bits = 0;
+                for (int i = 0; i < 8; i++) {
+                    bits = (bits << 8) | readByte();
+                }
+                return Double.longBitsToDouble(bits);
+            case 5:
+                return readString();
+            default:
+                throw new IllegalStateException("Unknown value tag " + tag + ".");
+        }
+    }
+
+    void readDepth(Expr expr) {
+        int depth = readInt();
+        if (depth >= 0)
+            interpreter.resolve(expr, depth);
+    }
+
+    // 크기 대신 -1 을 읽은 뒤에 호출된다.
+    LazyBody readLazyBody() {
+        int from = readInt();
+        int to = readInt();
+        int line = readInt();
+        boolean method = readBoolean();
+        int count = readInt();
+        Set<String> assignedNames = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            assignedNames.add(readString());
+        }
+        if (from < 0 || from > to || to > source.length)
+            throw new IllegalStateException("Function body is outside the source.");
+        return new LazyBody(source, from, to, line, method, assignedNames);
+    }
+}
@@ -0,0 +1,136 @@
+package org.sealang.sinterp;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+* AST 캐시의 바이트 버퍼. AstCodec.Writer 가 노드 구조를 쓰고, 여기서는 나머지를 쓴다.
+*
+* 정수는 지그재그 가변 길이로 쓴다. 토큰과 문자열은 처음 나올 때만 내용을 쓰고 이후에는
+* 번호로 가리킨다. (번호가 지금까지 쓴 개수와 같으면 뒤에 내용이 온다.) 한 토큰을 여러 노드가
+* 공유하면 읽은 뒤에도 공유한다. Expr 노드 뒤에는 리졸브 깊이를 쓴다. (-1 은 전역)
+* */
+final class AstOutput {
+    private final Interpreter interpreter;
+    private byte[] bytes = new byte[4096];
+    private int size = 0;
+    private final Map<Token, Integer> tokens = new IdentityHashMap<>();
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    AstOutput(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(bytes, size);
+    }
+
+    void writeByte(int value) {
+        if (size == bytes.length)
+            bytes = Arrays.copyOf(bytes, size * 2);
+        bytes[size++] = (byte) value;
+    }
+
+    void writeBytes(byte[] values) {
+        for (byte value : values) {
+            writeByte(value);
+        }
+    }
+
+    void writeInt(int value) {
+        writeLong(value);
+    }
+
+    void writeLong(long value) {
+        long zigzag = (value << 1) ^ (value >> 63);
+        while ((zigzag & ~0x7FL) != 0) {
+            writeByte((int) (zigzag & 0x7F) | 0x80);
+            zigzag >>>= 7;
+        }
+        writeByte((int) zigzag);
+    }
+
+    void writeBoolean(boolean value) {
+        writeByte(value ? 1 : 0);
+    }
+
+    void writeString(String value) {
+        Integer index = strings.get(value);
+        if (index != null) {
+            writeInt(index);
+            return;
+        }
+
+        writeInt(strings.size());
+        strings.put(value, strings.size());
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(utf8.length);
+        writeBytes(utf8);
+    }
+
+    void writeToken(Token token) {
+        Integer index = tokens.get(token);
+        if (index != null) {
+            writeInt(index);
+            return;
+        }
+
+        writeInt(tokens.size());
+        tokens.put(token, tokens.size());
+        writeInt(token.type.ordinal());
+        writeString(token.lexeme);
+        writeValue(token.literal);
+        writeInt(token.line);
+    }
+
+    // 리터럴과 합쳐진 노드의 상수. 스캐너와 최적화 패스가 만드는 값만 있다.
+    void writeValue(Object value) {
+        if (value == null) {
+            writeByte(0);
+        } else if (value instanceof Boolean) {
+            writeByte((Boolean) value ? 1 : 2);
+        } else if (value instanceof Long) {
+            writeByte(3);
+            writeLong((Long) value);
+        } else if (value instanceof Double) {
+            writeByte(4);
+            long bits = Double.doubleToRawLongBits((Double) value);
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                writeByte((int) (bits >>> shift));
+            }
+        } else if (value instanceof String) {
+            writeByte(5);
+            writeString((String) value);
+        } else {
+            throw new IllegalArgumentException("Can't cache a value of type " +
+                    value.getClass().getSimpleName() + ".");
+        }
+    }
+
+    void writeDepth(Expr expr) {
+        Integer depth = interpreter.depthOf(expr);
+        writeInt(depth == null ? -1 : depth);
+    }
+
+    // 파싱을 미룬 본문은 노드 대신 소스 구간을 쓴다. 다른 리스트면 false
+    boolean writeLazyBody(List<? extends Stmt> statements) {
+        if (!(statements instanceof LazyBody))
+            return false;
+
+        LazyBody body = (LazyBody) statements;
+        writeInt(-1);
+        writeInt(body.from);
+        writeInt(body.to);
+        writeInt(body.line);
+        writeBoolean(body.method);
+        writeInt(body.assignedNames.size());
+        for (String name : body.assignedNames) {
+            writeString(name);
+        }
+        return true;
+    }
+}
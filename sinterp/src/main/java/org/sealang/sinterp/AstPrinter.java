@@ -22,6 +22,32 @@ class AstPrinter implements Expr.Visitor<String> {
         return "";
     }
 
+    @Override
+    public String visitCompareConstExpr(Expr.CompareConst expr) {
+        return "(" + expr.operator.lexeme + " " + expr.name.lexeme + " " +
+                expr.constant + ")";
+    }
+
+    @Override
+    public String visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+        return "";
+    }
+
+    @Override
+    public String visitCompoundSetExpr(Expr.CompoundSet expr) {
+        return "";
+    }
+
+    @Override
+    public String visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+        return parenthesize("[]" + expr.operator.lexeme, expr.object, expr.index, expr.value);
+    }
+
+    @Override
+    public String visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+        return "";
+    }
+
     @Override
     public String visitGetExpr(Expr.Get expr) {
         return "";
@@ -32,6 +58,32 @@ class AstPrinter implements Expr.Visitor<String> {
         return parenthesize("group", expr.expression);
     }
 
+    @Override
+    public String visitHoistedExpr(Expr.Hoisted expr) {
+        return parenthesize("hoisted", expr.expression);
+    }
+
+    @Override
+    public String visitIncrementExpr(Expr.Increment expr) {
+        return "(" + expr.operator.lexeme + "= " + expr.name.lexeme + " " +
+                expr.delta + ")";
+    }
+
+    @Override
+    public String visitIndexExpr(Expr.Index expr) {
+        return parenthesize("[]", expr.object, expr.index);
+    }
+
+    @Override
+    public String visitIndexSetExpr(Expr.IndexSet expr) {
+        return parenthesize("[]=", expr.object, expr.index, expr.value);
+    }
+
+    @Override
+    public String visitListLiteralExpr(Expr.ListLiteral expr) {
+        return parenthesize("list", expr.elements.toArray(new Expr[0]));
+    }
+
     @Override
     public String visitLiteralExpr(Expr.Literal expr) {
         if (expr.value == null)
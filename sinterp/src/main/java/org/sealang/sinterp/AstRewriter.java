@@ -0,0 +1,364 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+* AstRewriter
+* 역할 : AST 를 순회하면서 노드를 다른 노드로 치환하는 최적화 패스들의 기반 클래스.
+* 기본 동작은 자식 노드만 다시 방문하고, 자식이 바뀌지 않았으면 원래 노드를 그대로 돌려준다.
+* 리졸브가 끝난 뒤에 실행되는 패스는 Interpreter.locals 가 노드 identity 를 키로 쓰므로
+* 바뀌지 않은 노드는 반드시 같은 객체를 유지해야 한다.
+* 그런 패스는 interpreter 를 넘겨서 만든다. 그러면 거리가 기록된 노드(Assign, CompoundAssign)를
+* 새로 만들 때 원래 노드의 거리를 새 노드로 옮긴다. (keepDepth)
+* */
+class AstRewriter implements Expr.Visitor<Expr>, Stmt.Visitor<Stmt> {
+    // 리졸브 전에 실행되는 패스(Inliner)는 null
+    final Interpreter interpreter;
+
+    AstRewriter() {
+        this(null);
+    }
+
+    AstRewriter(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    // 리졸브된 노드 original 을 copy 로 바꿀 때 original 의 거리를 copy 에 기록한다.
+    // 전역 변수(거리 없음)면 아무것도 하지 않는다.
+    <T extends Expr> T keepDepth(Expr original, T copy) {
+        if (interpreter != null) {
+            Integer depth = interpreter.depthOf(original);
+            if (depth != null)
+                interpreter.resolve(copy, depth);
+        }
+        return copy;
+    }
+
+    List<Stmt> rewrite(List<Stmt> statements) {
+        List<Stmt> result = null;
+        for (int i = 0; i < statements.size(); i++) {
+            Stmt original = statements.get(i);
+            Stmt rewritten = rewrite(original);
+            if (rewritten != original && result == null) {
+                // 처음으로 바뀐 노드가 나왔을 때만 리스트를 복사한다.
+                result = new ArrayList<>(statements.subList(0, i));
+            }
+            if (result != null)
+                result.add(rewritten);
+        }
+        return result == null ? statements : result;
+    }
+
+    Stmt rewrite(Stmt stmt) {
+        if (stmt == null)
+            return null;
+        return stmt.accept(this);
+    }
+
+    Expr rewrite(Expr expr) {
+        if (expr == null)
+            return null;
+        return expr.accept(this);
+    }
+
+    List<Expr> rewriteExprs(List<Expr> exprs) {
+        List<Expr> result = null;
+        for (int i = 0; i < exprs.size(); i++) {
+            Expr original = exprs.get(i);
+            Expr rewritten = rewrite(original);
+            if (rewritten != original && result == null) {
+                result = new ArrayList<>(exprs.subList(0, i));
+            }
+            if (result != null)
+                result.add(rewritten);
+        }
+        return result == null ? exprs : result;
+    }
+
+    // 함수 선언은 Stmt.Function 타입을 유지해야 클래스 메서드 목록에 넣을 수 있다.
+    Stmt.Function rewriteFunction(Stmt.Function function) {
+        // 파싱을 미룬 본문은 로드할 때 패스를 거친다.
+        if (function.body instanceof LazyBody)
+            return function;
+        List<Stmt> body = rewrite(function.body);
+        if (body == function.body)
+            return function;
+        return new Stmt.Function(function.name, function.params, body, function.generator);
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr value = rewrite(expr.value);
+        if (value == expr.value)
+            return expr;
+        return keepDepth(expr, new Expr.Assign(expr.name, value));
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+        if (left == expr.left && right == expr.right)
+            return expr;
+        return new Expr.Binary(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        Expr callee = rewrite(expr.callee);
+        List<Expr> arguments = rewriteExprs(expr.arguments);
+        if (callee == expr.callee && arguments == expr.arguments)
+            return expr;
+        return new Expr.Call(callee, expr.paren, arguments);
+    }
+
+    @Override
+    public Expr visitCompareConstExpr(Expr.CompareConst expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+        Expr value = rewrite(expr.value);
+        if (value == expr.value)
+            return expr;
+        return keepDepth(expr,
+                new Expr.CompoundAssign(expr.name, expr.operator, value, expr.postfix));
+    }
+
+    @Override
+    public Expr visitCompoundSetExpr(Expr.CompoundSet expr) {
+        Expr object = rewrite(expr.object);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && value == expr.value)
+            return expr;
+        return new Expr.CompoundSet(object, expr.name, expr.operator, value,
+                expr.postfix);
+    }
+
+    @Override
+    public Expr visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+        Expr object = rewrite(expr.object);
+        Expr index = rewrite(expr.index);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && index == expr.index && value == expr.value)
+            return expr;
+        return new Expr.CompoundIndexSet(object, expr.bracket, index, expr.operator, value,
+                expr.postfix);
+    }
+
+    @Override
+    public Expr visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+        Expr object = rewrite(expr.object);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && value == expr.value)
+            return expr;
+        return new Expr.FieldAddAssign(object, expr.name, expr.operator, value);
+    }
+
+    @Override
+    public Expr visitGetExpr(Expr.Get expr) {
+        Expr object = rewrite(expr.object);
+        if (object == expr.object)
+            return expr;
+        return new Expr.Get(object, expr.name);
+    }
+
+    @Override
+    public Expr visitGroupingExpr(Expr.Grouping expr) {
+        Expr expression = rewrite(expr.expression);
+        if (expression == expr.expression)
+            return expr;
+        return new Expr.Grouping(expression);
+    }
+
+    @Override
+    public Expr visitHoistedExpr(Expr.Hoisted expr) {
+        Expr expression = rewrite(expr.expression);
+        if (expression == expr.expression)
+            return expr;
+        return new Expr.Hoisted(expression, expr.loop, expr.slot);
+    }
+
+    @Override
+    public Expr visitIncrementExpr(Expr.Increment expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitIndexExpr(Expr.Index expr) {
+        Expr object = rewrite(expr.object);
+        Expr index = rewrite(expr.index);
+        if (object == expr.object && index == expr.index)
+            return expr;
+        return new Expr.Index(object, expr.bracket, index);
+    }
+
+    @Override
+    public Expr visitIndexSetExpr(Expr.IndexSet expr) {
+        Expr object = rewrite(expr.object);
+        Expr index = rewrite(expr.index);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && index == expr.index && value == expr.value)
+            return expr;
+        return new Expr.IndexSet(object, expr.bracket, index, value);
+    }
+
+    @Override
+    public Expr visitListLiteralExpr(Expr.ListLiteral expr) {
+        List<Expr> elements = rewriteExprs(expr.elements);
+        if (elements == expr.elements)
+            return expr;
+        return new Expr.ListLiteral(expr.bracket, elements);
+    }
+
+    @Override
+    public Expr visitLiteralExpr(Expr.Literal expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitLogicalExpr(Expr.Logical expr) {
+        Expr left = rewrite(expr.left);
+        Expr right = rewrite(expr.right);
+        if (left == expr.left && right == expr.right)
+            return expr;
+        return new Expr.Logical(left, expr.operator, right);
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        Expr object = rewrite(expr.object);
+        Expr value = rewrite(expr.value);
+        if (object == expr.object && value == expr.value)
+            return expr;
+        return new Expr.Set(object, expr.name, value);
+    }
+
+    @Override
+    public Expr visitThisExpr(Expr.This expr) {
+        return expr;
+    }
+
+    @Override
+    public Expr visitUnaryExpr(Expr.Unary expr) {
+        Expr right = rewrite(expr.right);
+        if (right == expr.right)
+            return expr;
+        return new Expr.Unary(expr.operator, right);
+    }
+
+    @Override
+    public Expr visitVariableExpr(Expr.Variable expr) {
+        return expr;
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        List<Stmt> statements = rewrite(stmt.statements);
+        if (statements == stmt.statements)
+            return stmt;
+        return new Stmt.Block(statements);
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        List<Stmt.Function> methods = null;
+        for (int i = 0; i < stmt.methods.size(); i++) {
+            Stmt.Function original = stmt.methods.get(i);
+            Stmt.Function rewritten = rewriteFunction(original);
+            if (rewritten != original && methods == null) {
+                methods = new ArrayList<>(stmt.methods.subList(0, i));
+            }
+            if (methods != null)
+                methods.add(rewritten);
+        }
+        if (methods == null)
+            return stmt;
+        return new Stmt.Class(stmt.name, methods);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expression = rewrite(stmt.expression);
+        if (expression == stmt.expression)
+            return stmt;
+        return new Stmt.Expression(expression);
+    }
+
+    @Override
+    public Stmt visitForInStmt(Stmt.ForIn stmt) {
+        Expr iterable = rewrite(stmt.iterable);
+        Stmt body = rewrite(stmt.body);
+        if (iterable == stmt.iterable && body == stmt.body)
+            return stmt;
+        return new Stmt.ForIn(stmt.name, iterable, body);
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        return rewriteFunction(stmt);
+    }
+
+    @Override
+    public Stmt visitHoistedWhileStmt(Stmt.HoistedWhile stmt) {
+        Expr condition = rewrite(stmt.condition);
+        Stmt body = rewrite(stmt.body);
+        if (condition == stmt.condition && body == stmt.body)
+            return stmt;
+        return new Stmt.HoistedWhile(condition, body, stmt.loop, stmt.slots);
+    }
+
+    @Override
+    public Stmt visitIfStmt(Stmt.If stmt) {
+        Expr condition = rewrite(stmt.condition);
+        Stmt thenBranch = rewrite(stmt.thenBranch);
+        Stmt elseBranch = rewrite(stmt.elseBranch);
+        if (condition == stmt.condition && thenBranch == stmt.thenBranch &&
+                elseBranch == stmt.elseBranch)
+            return stmt;
+        return new Stmt.If(condition, thenBranch, elseBranch);
+    }
+
+    @Override
+    public Stmt visitPrintStmt(Stmt.Print stmt) {
+        Expr expression = rewrite(stmt.expression);
+        if (expression == stmt.expression)
+            return stmt;
+        return new Stmt.Print(expression);
+    }
+
+    @Override
+    public Stmt visitReturnStmt(Stmt.Return stmt) {
+        Expr value = rewrite(stmt.value);
+        if (value == stmt.value)
+            return stmt;
+        return new Stmt.Return(stmt.keyword, value);
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        Expr initializer = rewrite(stmt.initializer);
+        if (initializer == stmt.initializer)
+            return stmt;
+        return new Stmt.Var(stmt.name, initializer);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        Expr condition = rewrite(stmt.condition);
+        Stmt body = rewrite(stmt.body);
+        if (condition == stmt.condition && body == stmt.body)
+            return stmt;
+        return new Stmt.While(condition, body);
+    }
+
+    @Override
+    public Stmt visitYieldStmt(Stmt.Yield stmt) {
+        Expr value = rewrite(stmt.value);
+        if (value == stmt.value)
+            return stmt;
+        return new Stmt.Yield(stmt.keyword, value);
+    }
+}
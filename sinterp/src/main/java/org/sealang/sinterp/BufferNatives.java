@@ -0,0 +1,75 @@
+package org.sealang.sinterp;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+/*
+* 버퍼 내장 함수
+*  buffer(size)              : 0 으로 채워진 size 바이트를 힙 밖에 할당한다.
+*  mapFile(path, writable)   : 파일 전체를 매핑한다. writable 이 true 면 쓰기가 파일에 반영된다.
+*  getByte/getInt/getDouble(buf, offset)
+*  setByte/setInt/setDouble(buf, offset, value)
+*  free(buf)                 : 버퍼를 더 쓰지 못하게 하고 메모리에 대한 참조를 끊는다.
+*                              실제 해제는 GC 가 수거할 때 일어난다.
+* size(buf) 는 바이트 수를 돌려준다. (ListNatives)
+* */
+final class BufferNatives {
+    private BufferNatives() {}
+
+    @Native
+    static SInterpBuffer buffer(Object size) {
+        long n = SInterpBuffer.integer(size);
+        if (n < 0)
+            throw new NativeError("Buffer size must be a non-negative integer.");
+        try {
+            return new SInterpBuffer(BufferStorage.FACTORY.allocate(n));
+        } catch (OutOfMemoryError e) {
+            throw new NativeError("Can't allocate buffer.");
+        }
+    }
+
+    @Native
+    static SInterpBuffer mapFile(String path, boolean writable) {
+        try {
+            return new SInterpBuffer(BufferStorage.FACTORY.map(Path.of(path), writable));
+        } catch (IOException | InvalidPathException e) {
+            throw new NativeError("Can't map file '" + path + "'.");
+        }
+    }
+
+    @Native
+    static long getByte(SInterpBuffer buffer, Object offset) {
+        return buffer.getByte(offset);
+    }
+
+    @Native
+    static void setByte(SInterpBuffer buffer, Object offset, Object value) {
+        buffer.setByte(offset, value);
+    }
+
+    @Native
+    static long getInt(SInterpBuffer buffer, Object offset) {
+        return buffer.getInt(offset);
+    }
+
+    @Native
+    static void setInt(SInterpBuffer buffer, Object offset, Object value) {
+        buffer.setInt(offset, value);
+    }
+
+    @Native
+    static double getDouble(SInterpBuffer buffer, Object offset) {
+        return buffer.getDouble(offset);
+    }
+
+    @Native
+    static void setDouble(SInterpBuffer buffer, Object offset, Object value) {
+        buffer.setDouble(offset, value);
+    }
+
+    @Native
+    static void free(SInterpBuffer buffer) {
+        buffer.free();
+    }
+}
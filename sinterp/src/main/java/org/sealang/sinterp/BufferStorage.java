@@ -0,0 +1,43 @@
+package org.sealang.sinterp;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/*
+* BufferStorage
+* SInterpBuffer 가 쓰는 힙 밖의 메모리 영역.
+* direct/mapped ByteBuffer 를 1GB 조각으로 나누어 쓰는 구현(ByteBufferStorage)이 있어
+* 2GB 를 넘는 버퍼와 파일도 다룰 수 있다.
+*
+* 다중 바이트 값은 리틀 엔디언으로 읽고 쓴다. 범위 검사는 SInterpBuffer 가 한다.
+* */
+interface BufferStorage {
+    Factory FACTORY = new ByteBufferStorage.Allocator();
+
+    interface Factory {
+        // 0 으로 초기화된 size 바이트
+        BufferStorage allocate(long size);
+
+        // 파일 전체를 메모리에 매핑한다.
+        BufferStorage map(Path path, boolean writable) throws IOException;
+    }
+
+    long size();
+
+    boolean isReadOnly();
+
+    byte getByte(long offset);
+
+    void setByte(long offset, byte value);
+
+    int getInt(long offset);
+
+    void setInt(long offset, int value);
+
+    double getDouble(long offset);
+
+    void setDouble(long offset, double value);
+
+    // 메모리에 대한 참조를 끊는다. 실제 해제는 GC 가 수거할 때 일어난다.
+    void free();
+}
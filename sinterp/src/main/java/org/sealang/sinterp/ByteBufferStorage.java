@@ -0,0 +1,151 @@
+package org.sealang.sinterp;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+* direct ByteBuffer 와 MappedByteBuffer 로 만든 BufferStorage 구현.
+* ByteBuffer 하나는 2GB 를 넘을 수 없으므로 1GB 조각(chunk)으로 나누어 할당하거나 매핑한다.
+* 조각 경계에 걸친 int/double 은 바이트 단위로 읽고 쓴다.
+*
+* free 는 조각들의 참조만 끊고, 실제 해제는 GC 가 버퍼를 수거할 때 일어난다.
+* (해제 뒤의 접근은 SInterpBuffer 가 막는다.)
+* */
+class ByteBufferStorage implements BufferStorage {
+    private static final int CHUNK_SHIFT = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_SHIFT;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private ByteBuffer[] chunks;
+    private final long size;
+    private final boolean readOnly;
+
+    private ByteBufferStorage(ByteBuffer[] chunks, long size, boolean readOnly) {
+        for (ByteBuffer chunk : chunks)
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+        this.chunks = chunks;
+        this.size = size;
+        this.readOnly = readOnly;
+    }
+
+    static class Allocator implements BufferStorage.Factory {
+        @Override
+        public BufferStorage allocate(long size) {
+            ByteBuffer[] chunks = new ByteBuffer[chunkCount(size)];
+            for (int i = 0; i < chunks.length; i++)
+                chunks[i] = ByteBuffer.allocateDirect(chunkLength(size, i));
+            return new ByteBufferStorage(chunks, size, false);
+        }
+
+        @Override
+        public BufferStorage map(Path path, boolean writable) throws IOException {
+            StandardOpenOption[] options = writable ?
+                    new StandardOpenOption[] {StandardOpenOption.READ, StandardOpenOption.WRITE} :
+                    new StandardOpenOption[] {StandardOpenOption.READ};
+            try (FileChannel channel = FileChannel.open(path, options)) {
+                FileChannel.MapMode mode = writable ?
+                        FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY;
+                long size = channel.size();
+                ByteBuffer[] chunks = new ByteBuffer[chunkCount(size)];
+                for (int i = 0; i < chunks.length; i++)
+                    chunks[i] = channel.map(mode, i * CHUNK_SIZE, chunkLength(size, i));
+                return new ByteBufferStorage(chunks, size, !writable);
+            }
+        }
+
+        private static int chunkCount(long size) {
+            if (size > ((long) Integer.MAX_VALUE << CHUNK_SHIFT))
+                throw new NativeError("Buffer too large.");
+            return (int) ((size + CHUNK_MASK) >>> CHUNK_SHIFT);
+        }
+
+        private static int chunkLength(long size, int index) {
+            return (int) Math.min(CHUNK_SIZE, size - index * CHUNK_SIZE);
+        }
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public byte getByte(long offset) {
+        return chunk(offset).get(position(offset));
+    }
+
+    @Override
+    public void setByte(long offset, byte value) {
+        chunk(offset).put(position(offset), value);
+    }
+
+    @Override
+    public int getInt(long offset) {
+        if (fits(offset, 4))
+            return chunk(offset).getInt(position(offset));
+        return (int) getSpanning(offset, 4);
+    }
+
+    @Override
+    public void setInt(long offset, int value) {
+        if (fits(offset, 4))
+            chunk(offset).putInt(position(offset), value);
+        else
+            setSpanning(offset, 4, value);
+    }
+
+    @Override
+    public double getDouble(long offset) {
+        if (fits(offset, 8))
+            return chunk(offset).getDouble(position(offset));
+        return Double.longBitsToDouble(getSpanning(offset, 8));
+    }
+
+    @Override
+    public void setDouble(long offset, double value) {
+        if (fits(offset, 8))
+            chunk(offset).putDouble(position(offset), value);
+        else
+            setSpanning(offset, 8, Double.doubleToRawLongBits(value));
+    }
+
+    @Override
+    public void free() {
+        chunks = null;
+    }
+
+    private ByteBuffer chunk(long offset) {
+        return chunks[(int) (offset >>> CHUNK_SHIFT)];
+    }
+
+    private static int position(long offset) {
+        return (int) (offset & CHUNK_MASK);
+    }
+
+    // offset 부터 width 바이트가 한 조각 안에 있는지
+    private static boolean fits(long offset, int width) {
+        return position(offset) <= CHUNK_SIZE - width;
+    }
+
+    // 조각 경계에 걸친 값을 리틀 엔디언으로 조립한다.
+    private long getSpanning(long offset, int width) {
+        long value = 0;
+        for (int i = 0; i < width; i++)
+            value |= (getByte(offset + i) & 0xFFL) << (8 * i);
+        return value;
+    }
+
+    private void setSpanning(long offset, int width, long value) {
+        for (int i = 0; i < width; i++)
+            setByte(offset + i, (byte) (value >>> (8 * i)));
+    }
+}
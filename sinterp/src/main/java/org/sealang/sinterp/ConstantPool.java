@@ -0,0 +1,76 @@
+package org.sealang.sinterp;
+
+/*
+* 스캔 중에 나온 숫자 상수를 모아 두는 풀. 같은 값의 리터럴은 같은 Long/Double 객체를 공유한다.
+* 값의 비트(long 값 또는 double 의 raw 비트)를 키로 하는 선형 탐사 해시 테이블이다.
+* 정수와 실수는 비트가 같아도 다른 상수이므로 값의 타입까지 비교한다.
+* */
+final class ConstantPool {
+    private long[] keys = new long[64];
+    private Object[] values = new Object[64];
+    private int size = 0;
+
+    Long of(long value) {
+        Object constant = find(value, false);
+        if (constant == null)
+            constant = add(value, Long.valueOf(value));
+        return (Long) constant;
+    }
+
+    Double of(double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        Object constant = find(bits, true);
+        if (constant == null)
+            constant = add(bits, Double.valueOf(value));
+        return (Double) constant;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private Object find(long key, boolean isDouble) {
+        int mask = values.length - 1;
+        int i = slot(key) & mask;
+        while (values[i] != null) {
+            if (keys[i] == key && (values[i] instanceof Double) == isDouble)
+                return values[i];
+            i = (i + 1) & mask;
+        }
+        return null;
+    }
+
+    private Object add(long key, Object value) {
+        if ((size + 1) * 2 > values.length)
+            resize();
+        insert(key, value);
+        size++;
+        return value;
+    }
+
+    private void insert(long key, Object value) {
+        int mask = values.length - 1;
+        int i = slot(key) & mask;
+        while (values[i] != null) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null)
+                insert(oldKeys[i], oldValues[i]);
+        }
+    }
+
+    private static int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int)(h >>> 32);
+    }
+}
@@ -2,11 +2,19 @@ package org.sealang.sinterp;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 // Scope 의 변수및 객체들과 Symbol 을 연결한 심볼 테이블
+// 이름은 intern 된 Symbol 이므로 해시 테이블에서 identity 로 비교된다.
 public class Environment {
+    private static final AtomicIntegerFieldUpdater<Environment> FROZEN =
+            AtomicIntegerFieldUpdater.newUpdater(Environment.class, "frozen");
+
     final Environment enclosing; // scope 를 구현하기 위해 환경 저장
-    private final Map<String, Object> values = new HashMap<>();
+    private final Map<Symbol, Object> values = new HashMap<>();
+    // 0 이 아니면 값을 바꿀 수 없다. 병렬 내장 함수가 실행되는 동안 전역 환경을 잠근다.
+    // values 는 동기화되지 않으므로 작업 스레드들은 읽기만 해야 한다. (ParallelNatives)
+    private volatile int frozen = 0;
 
     Environment() {
         enclosing = null;
@@ -18,8 +26,8 @@ public class Environment {
 
     // 심볼테이블에서 이름으로 AST Node 검색
     Object get(Token name) {
-        if (values.containsKey(name.lexeme)) {
-            return values.get(name.lexeme);
+        if (values.containsKey(name.symbol)) {
+            return values.get(name.symbol);
         }
 
         // 현재 Scope 에서 이름을 찾을 수 없을 경우 상위 환경에서 검색
@@ -31,8 +39,9 @@ public class Environment {
     }
 
     void assign(Token name, Object value) {
-        if (values.containsKey((name.lexeme))) {
-            values.put(name.lexeme, value);
+        if (values.containsKey(name.symbol)) {
+            checkWritable(name);
+            values.put(name.symbol, value);
             return;
         }
 
@@ -45,17 +54,52 @@ public class Environment {
                 "Undefined variable '" + name.lexeme + "'.");
     }
 
-    void define(String name, Object value) {
+    void define(Symbol name, Object value) {
         values.put(name, value);
     }
 
-    Object getAt(int distance, String name) {
+    void define(String name, Object value) {
+        define(Symbol.intern(name), value);
+    }
+
+    // 이 환경에서만 변수를 읽는다. 상위 환경은 검색하지 않는다.
+    Object getHere(Token name) {
+        Object value = values.get(name.symbol);
+        if (value == null && !values.containsKey(name.symbol)) {
+            throw new RuntimeError(name,
+                    "Undefined variable '" + name.lexeme + "'.");
+        }
+        return value;
+    }
+
+    // getHere 로 찾은 변수에 값을 다시 쓴다.
+    void assignHere(Token name, Object value) {
+        checkWritable(name);
+        values.put(name.symbol, value);
+    }
+
+    Object getAt(int distance, Symbol name) {
         return ancestor(distance).values.get(name);
     }
 
     void assignAt(int distance, Token name, Object value) {
         // 거리만큼 떨어진 환경을 가져와서 value 를 셋팅한다.
-        ancestor(distance).values.put(name.lexeme, value);
+        ancestor(distance).values.put(name.symbol, value);
+    }
+
+    // 잠금은 중첩될 수 있다. freeze 한 횟수만큼 unfreeze 해야 풀린다.
+    void freeze() {
+        FROZEN.incrementAndGet(this);
+    }
+
+    void unfreeze() {
+        FROZEN.decrementAndGet(this);
+    }
+
+    private void checkWritable(Token name) {
+        if (frozen != 0)
+            throw new RuntimeError(name,
+                    "Can't assign global variable '" + name.lexeme + "' inside a parallel function.");
     }
 
     Environment ancestor(int distance) {
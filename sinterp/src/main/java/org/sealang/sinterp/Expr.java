@@ -7,8 +7,18 @@ abstract class Expr {
         R visitAssignExpr(Assign expr);
         R visitBinaryExpr(Binary expr);
         R visitCallExpr(Call expr);
+        R visitCompareConstExpr(CompareConst expr);
+        R visitCompoundAssignExpr(CompoundAssign expr);
+        R visitCompoundSetExpr(CompoundSet expr);
+        R visitCompoundIndexSetExpr(CompoundIndexSet expr);
+        R visitFieldAddAssignExpr(FieldAddAssign expr);
         R visitGetExpr(Get expr);
         R visitGroupingExpr(Grouping expr);
+        R visitHoistedExpr(Hoisted expr);
+        R visitIncrementExpr(Increment expr);
+        R visitIndexExpr(Index expr);
+        R visitIndexSetExpr(IndexSet expr);
+        R visitListLiteralExpr(ListLiteral expr);
         R visitLiteralExpr(Literal expr);
         R visitLogicalExpr(Logical expr);
         R visitSetExpr(Set expr);
@@ -66,6 +76,105 @@ abstract class Expr {
         final List<Expr> arguments;
     }
 
+    static class CompareConst extends Expr {
+        CompareConst(Token name, Token operator, Object constant) {
+            this.name = name;
+            this.operator = operator;
+            this.constant = constant;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitCompareConstExpr(this);
+        };
+
+        final Token name;
+        final Token operator;
+        final Object constant;
+    }
+
+    static class CompoundAssign extends Expr {
+        CompoundAssign(Token name, Token operator, Expr value, boolean postfix) {
+            this.name = name;
+            this.operator = operator;
+            this.value = value;
+            this.postfix = postfix;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitCompoundAssignExpr(this);
+        };
+
+        final Token name;
+        final Token operator;
+        final Expr value;
+        final boolean postfix;
+    }
+
+    static class CompoundSet extends Expr {
+        CompoundSet(Expr object, Token name, Token operator, Expr value, boolean postfix) {
+            this.object = object;
+            this.name = name;
+            this.operator = operator;
+            this.value = value;
+            this.postfix = postfix;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitCompoundSetExpr(this);
+        };
+
+        final Expr object;
+        final Token name;
+        final Token operator;
+        final Expr value;
+        final boolean postfix;
+    }
+
+    static class CompoundIndexSet extends Expr {
+        CompoundIndexSet(Expr object, Token bracket, Expr index, Token operator, Expr value, boolean postfix) {
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+            this.operator = operator;
+            this.value = value;
+            this.postfix = postfix;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitCompoundIndexSetExpr(this);
+        };
+
+        final Expr object;
+        final Token bracket;
+        final Expr index;
+        final Token operator;
+        final Expr value;
+        final boolean postfix;
+    }
+
+    static class FieldAddAssign extends Expr {
+        FieldAddAssign(Expr object, Token name, Token operator, Expr value) {
+            this.object = object;
+            this.name = name;
+            this.operator = operator;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitFieldAddAssignExpr(this);
+        };
+
+        final Expr object;
+        final Token name;
+        final Token operator;
+        final Expr value;
+    }
+
     static class Get extends Expr {
         Get(Expr object, Token name) {
             this.object = object;
@@ -94,6 +203,91 @@ abstract class Expr {
         final Expr expression;
     }
 
+    static class Hoisted extends Expr {
+        Hoisted(Expr expression, int loop, int slot) {
+            this.expression = expression;
+            this.loop = loop;
+            this.slot = slot;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitHoistedExpr(this);
+        };
+
+        final Expr expression;
+        final int loop;
+        final int slot;
+    }
+
+    static class Increment extends Expr {
+        Increment(Token name, Token operator, Object delta) {
+            this.name = name;
+            this.operator = operator;
+            this.delta = delta;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitIncrementExpr(this);
+        };
+
+        final Token name;
+        final Token operator;
+        final Object delta;
+    }
+
+    static class Index extends Expr {
+        Index(Expr object, Token bracket, Expr index) {
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitIndexExpr(this);
+        };
+
+        final Expr object;
+        final Token bracket;
+        final Expr index;
+    }
+
+    static class IndexSet extends Expr {
+        IndexSet(Expr object, Token bracket, Expr index, Expr value) {
+            this.object = object;
+            this.bracket = bracket;
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitIndexSetExpr(this);
+        };
+
+        final Expr object;
+        final Token bracket;
+        final Expr index;
+        final Expr value;
+    }
+
+    static class ListLiteral extends Expr {
+        ListLiteral(Token bracket, List<Expr> elements) {
+            this.bracket = bracket;
+            this.elements = elements;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitListLiteralExpr(this);
+        };
+
+        final Token bracket;
+        final List<Expr> elements;
+    }
+
     static class Literal extends Expr {
         Literal(Object value) {
             this.value = value;
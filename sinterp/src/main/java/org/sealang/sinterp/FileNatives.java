@@ -0,0 +1,99 @@
+package org.sealang.sinterp;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+* 파일 내장 함수
+*  open(path, mode)     : mode 는 "r", "w", "a"
+*  readLine(file)       : 다음 줄. 파일 끝이면 nil
+*  readChunk(file, n)   : 최대 n 글자. 파일 끝이면 nil
+*  write(file, value)   : 값을 문자열로 바꿔 쓴다. (print 와 같은 형식, 줄바꿈 없음)
+*  writeLine(file, value) : write 뒤에 줄바꿈을 쓴다. (문자열에 이스케이프가 없으므로)
+*  close(file)
+* 스크립트가 닫지 않은 파일은 실행이 끝날 때 closeAll 로 닫아 버퍼를 비운다.
+* */
+final class FileNatives {
+    private FileNatives() {}
+
+    // 병렬 내장 함수의 작업 스레드에서도 열 수 있다.
+    private static final Set<SInterpFile> openFiles = ConcurrentHashMap.newKeySet();
+
+    @Native
+    static SInterpFile open(String path, String mode) {
+        try {
+            SInterpFile file = SInterpFile.open(path, mode);
+            openFiles.add(file);
+            return file;
+        } catch (IOException | InvalidPathException e) {
+            throw new NativeError("Can't open file '" + path + "'.");
+        }
+    }
+
+    @Native
+    static String readLine(SInterpFile file) {
+        try {
+            return file.readLine();
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+    }
+
+    @Native
+    static String readChunk(SInterpFile file, long count) {
+        if (count < 0 || count > Integer.MAX_VALUE)
+            throw new NativeError("Chunk size must be a non-negative integer.");
+        try {
+            return file.readChunk((int) count);
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+    }
+
+    @Native
+    static void write(SInterpFile file, Object value) {
+        try {
+            file.write(Interpreter.stringify(value));
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+    }
+
+    @Native
+    static void writeLine(SInterpFile file, Object value) {
+        try {
+            file.write(Interpreter.stringify(value) + "\n");
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+    }
+
+    @Native
+    static void close(SInterpFile file) {
+        openFiles.remove(file);
+        try {
+            file.close();
+        } catch (IOException e) {
+            throw ioError(e);
+        }
+    }
+
+    // 실행이 끝날 때 호출한다. 닫다가 난 에러는 무시한다.
+    static void closeAll() {
+        for (SInterpFile file : new ArrayList<>(openFiles)) {
+            try {
+                file.close();
+            } catch (IOException e) {
+                // 이미 실행이 끝났으므로 알릴 곳이 없다.
+            }
+        }
+        openFiles.clear();
+    }
+
+    private static NativeError ioError(IOException e) {
+        return new NativeError("I/O error: " + e.getMessage());
+    }
+}
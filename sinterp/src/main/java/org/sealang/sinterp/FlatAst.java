@@ -0,0 +1,643 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+* Expr/Stmt 트리를 평평한 int 배열(아레나)에 담은 AST. FlatWalker 가 이 배열을 바로 실행한다.
+*
+* 노드는 code 안의 위치로 가리킨다. 노드의 첫 칸은 종류이고, 이어서 아래 레이아웃대로 자식 노드의
+* 위치, 토큰 번호, 상수 번호, 정수 필드가 온다. 없는 자식과 null 상수는 -1 이다. 리스트는 개수 뒤에
+* 원소가 이어진다. 변수를 가리키는 식은 마지막 칸에 리졸브 깊이(-1 은 전역)를 가진다.
+* 자식을 먼저 쓰므로 노드는 항상 자식보다 뒤에 있다.
+*
+* 토큰은 tokens 에 (타입, 렉심 상수, 리터럴 상수, 라인) 네 칸씩 들어 있고, 식별자의 렉심 상수는
+* Symbol 이다. 런타임 에러와 Token 을 받는 기존 API(전역 변수, 필드)에 넘길 Token 객체만 token() 이
+* 필요할 때 만들어 둔다. 상수 풀의 값이 같은 리터럴, 렉심, 심볼은 하나의 상수를 공유한다.
+*
+* decode 로 원래의 Expr/Stmt 트리로 되돌릴 수 있다. 되돌린 식의 리졸브 깊이는 인터프리터에 다시
+* 등록되므로 트리 인터프리터로 그대로 실행할 수 있다.
+* */
+final class FlatAst {
+    // 식 노드 레이아웃
+    static final int ASSIGN = 1;           // name, value, depth
+    static final int BINARY = 2;           // left, operator, right
+    static final int CALL = 3;             // callee, paren, count, arguments...
+    static final int COMPARE_CONST = 4;    // name, operator, constant, depth
+    static final int COMPOUND_ASSIGN = 5;  // name, operator, value, postfix, depth
+    // object, bracket, index, operator, value, postfix
+    static final int COMPOUND_INDEX_SET = 6;
+    static final int COMPOUND_SET = 7;     // object, name, operator, value, postfix
+    static final int FIELD_ADD_ASSIGN = 8; // object, name, operator, value
+    static final int GET = 9;              // object, name
+    static final int GROUPING = 10;        // expression
+    static final int HOISTED = 11;         // expression, loop, slot
+    static final int INCREMENT = 12;       // name, operator, delta, depth
+    static final int INDEX = 13;           // object, bracket, index
+    static final int INDEX_SET = 14;       // object, bracket, index, value
+    static final int LIST_LITERAL = 15;    // bracket, count, elements...
+    static final int LITERAL = 16;         // value
+    static final int LOGICAL = 17;         // left, operator, right
+    static final int SET = 18;             // object, name, value
+    static final int THIS = 19;            // keyword, depth
+    static final int UNARY = 20;           // operator, right
+    static final int VARIABLE = 21;        // name, depth
+
+    // 문장 노드 레이아웃
+    static final int BLOCK = 22;           // count, statements...
+    static final int CLASS = 23;           // name, count, methods...
+    static final int EXPRESSION = 24;      // expression
+    static final int FOR_IN = 25;          // name, iterable, body
+    // name, generator, count, params..., count, body... 파싱을 미룬 본문은 -1, 상수(LazyFunction)
+    static final int FUNCTION = 26;
+    static final int HOISTED_WHILE = 27;   // condition, body, loop, slots
+    static final int IF = 28;              // condition, thenBranch, elseBranch
+    static final int PRINT = 29;           // expression
+    static final int RETURN = 30;          // keyword, value
+    static final int VAR = 31;             // name, initializer
+    static final int WHILE = 32;           // condition, body
+    static final int YIELD = 33;           // keyword, value
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    final int[] code;
+    private final int[] tokens;
+    private final Object[] constants;
+    // 최상위 문장 리스트의 위치. 개수 뒤에 문장들이 이어진다.
+    final int root;
+    // token() 이 만든 Token. 여러 스레드가 같은 토큰을 만들어도 결과가 같으므로 동기화하지 않는다.
+    private final Token[] materialized;
+
+    // 파싱을 미룬 함수 본문. 처음 호출될 때 로드한 본문을 따로 평평하게 만들어 둔다.
+    static final class LazyFunction {
+        final LazyBody body;
+        volatile FlatAst flat;
+
+        LazyFunction(LazyBody body) {
+            this.body = body;
+        }
+    }
+
+    private FlatAst(int[] code, int[] tokens, Object[] constants, int root) {
+        this.code = code;
+        this.tokens = tokens;
+        this.constants = constants;
+        this.root = root;
+        this.materialized = new Token[tokens.length / 4];
+    }
+
+    static FlatAst encode(List<Stmt> statements, Interpreter interpreter) {
+        Encoder encoder = new Encoder(interpreter);
+        int root = encoder.list(statements);
+        return new FlatAst(Arrays.copyOf(encoder.code, encoder.size),
+                Arrays.copyOf(encoder.tokens, encoder.tokenSize),
+                encoder.constants.toArray(), root);
+    }
+
+    // 토큰 필드
+    TokenType tokenType(int token) {
+        return TYPES[tokens[token * 4]];
+    }
+
+    Symbol symbol(int token) {
+        return (Symbol) constants[tokens[token * 4 + 1]];
+    }
+
+    int line(int token) {
+        return tokens[token * 4 + 3];
+    }
+
+    Token token(int token) {
+        Token created = materialized[token];
+        if (created == null) {
+            Object lexeme = constants[tokens[token * 4 + 1]];
+            String text = lexeme instanceof Symbol ? ((Symbol) lexeme).name : (String) lexeme;
+            created = new Token(tokenType(token), text, constant(tokens[token * 4 + 2]),
+                    line(token));
+            materialized[token] = created;
+        }
+        return created;
+    }
+
+    Object constant(int index) {
+        return index < 0 ? null : constants[index];
+    }
+
+    // 함수 노드의 본문 리스트 위치
+    int functionBody(int node) {
+        return node + 4 + code[node + 3];
+    }
+
+    List<Stmt> decode(Interpreter interpreter) {
+        return new Decoder(interpreter).statements(root);
+    }
+
+    Stmt.Function decodeFunction(int node, Interpreter interpreter) {
+        return (Stmt.Function) new Decoder(interpreter).stmt(node);
+    }
+
+    Stmt.Class decodeClass(int node, Interpreter interpreter) {
+        return (Stmt.Class) new Decoder(interpreter).stmt(node);
+    }
+
+    private static final class Encoder implements Expr.Visitor<Integer>, Stmt.Visitor<Integer> {
+        private final Interpreter interpreter;
+        int[] code = new int[1024];
+        int size = 0;
+        int[] tokens = new int[256];
+        int tokenSize = 0;
+        final List<Object> constants = new ArrayList<>();
+        private final Map<Token, Integer> tokenIndexes = new IdentityHashMap<>();
+        private final Map<Object, Integer> constantIndexes = new HashMap<>();
+        // emit 전에 자식과 리스트를 모아 두는 곳. 노드 하나를 쓸 때마다 비운다.
+        private int[] pending = new int[16];
+        private int pendingSize = 0;
+
+        Encoder(Interpreter interpreter) {
+            this.interpreter = interpreter;
+        }
+
+        private void add(int value) {
+            if (pendingSize == pending.length)
+                pending = Arrays.copyOf(pending, pendingSize * 2);
+            pending[pendingSize++] = value;
+        }
+
+        // kind 와 필드를 이어 써서 노드를 만들고 위치를 돌려준다.
+        private int emit(int kind, int[] fields, int count) {
+            int node = append(new int[] {kind}, 1);
+            append(fields, count);
+            return node;
+        }
+
+        private int append(int[] values, int count) {
+            if (size + count > code.length)
+                code = Arrays.copyOf(code, Math.max(code.length * 2, size + count));
+            int at = size;
+            System.arraycopy(values, 0, code, size, count);
+            size += count;
+            return at;
+        }
+
+        private int node(int kind, int... fields) {
+            return emit(kind, fields, fields.length);
+        }
+
+        private int expr(Expr expr) {
+            return expr == null ? -1 : expr.accept(this);
+        }
+
+        private int stmt(Stmt stmt) {
+            return stmt == null ? -1 : stmt.accept(this);
+        }
+
+        private int depth(Expr expr) {
+            Integer depth = interpreter.depthOf(expr);
+            return depth == null ? -1 : depth;
+        }
+
+        int token(Token token) {
+            Integer index = tokenIndexes.get(token);
+            if (index != null)
+                return index;
+
+            index = tokenSize / 4;
+            if (tokenSize + 4 > tokens.length)
+                tokens = Arrays.copyOf(tokens, tokens.length * 2);
+            tokens[tokenSize++] = token.type.ordinal();
+            tokens[tokenSize++] = constant(token.symbol != null ? token.symbol : token.lexeme);
+            tokens[tokenSize++] = constant(token.literal);
+            tokens[tokenSize++] = token.line;
+            tokenIndexes.put(token, index);
+            return index;
+        }
+
+        int constant(Object value) {
+            if (value == null)
+                return -1;
+            if (value instanceof LazyFunction) { // 값 비교를 하지 않는 객체
+                constants.add(value);
+                return constants.size() - 1;
+            }
+
+            Integer index = constantIndexes.get(value);
+            if (index == null) {
+                index = constants.size();
+                constants.add(value);
+                constantIndexes.put(value, index);
+            }
+            return index;
+        }
+
+        // 최상위 문장 리스트. 노드가 아니므로 kind 없이 개수와 원소만 쓴다.
+        int list(List<Stmt> statements) {
+            int[] nodes = new int[statements.size() + 1];
+            nodes[0] = statements.size();
+            for (int i = 0; i < statements.size(); i++) {
+                nodes[i + 1] = stmt(statements.get(i));
+            }
+            return append(nodes, nodes.length);
+        }
+
+        private int[] exprs(List<Expr> exprs) {
+            int[] nodes = new int[exprs.size()];
+            for (int i = 0; i < nodes.length; i++) {
+                nodes[i] = expr(exprs.get(i));
+            }
+            return nodes;
+        }
+
+        private int withList(int kind, int[] head, int[] items) {
+            pendingSize = 0;
+            for (int value : head) {
+                add(value);
+            }
+            add(items.length);
+            for (int value : items) {
+                add(value);
+            }
+            return emit(kind, pending, pendingSize);
+        }
+
+        @Override
+        public Integer visitAssignExpr(Expr.Assign expr) {
+            int value = expr(expr.value);
+            return node(ASSIGN, token(expr.name), value, depth(expr));
+        }
+
+        @Override
+        public Integer visitBinaryExpr(Expr.Binary expr) {
+            int left = expr(expr.left);
+            int right = expr(expr.right);
+            return node(BINARY, left, token(expr.operator), right);
+        }
+
+        @Override
+        public Integer visitCallExpr(Expr.Call expr) {
+            int callee = expr(expr.callee);
+            int[] arguments = exprs(expr.arguments);
+            return withList(CALL, new int[] {callee, token(expr.paren)}, arguments);
+        }
+
+        @Override
+        public Integer visitCompareConstExpr(Expr.CompareConst expr) {
+            return node(COMPARE_CONST, token(expr.name), token(expr.operator),
+                    constant(expr.constant), depth(expr));
+        }
+
+        @Override
+        public Integer visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+            int value = expr(expr.value);
+            return node(COMPOUND_ASSIGN, token(expr.name), token(expr.operator), value,
+                    expr.postfix ? 1 : 0, depth(expr));
+        }
+
+        @Override
+        public Integer visitCompoundSetExpr(Expr.CompoundSet expr) {
+            int object = expr(expr.object);
+            int value = expr(expr.value);
+            return node(COMPOUND_SET, object, token(expr.name), token(expr.operator), value,
+                    expr.postfix ? 1 : 0);
+        }
+
+        @Override
+        public Integer visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+            int object = expr(expr.object);
+            int index = expr(expr.index);
+            int value = expr(expr.value);
+            return node(COMPOUND_INDEX_SET, object, token(expr.bracket), index,
+                    token(expr.operator), value, expr.postfix ? 1 : 0);
+        }
+
+        @Override
+        public Integer visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+            int object = expr(expr.object);
+            int value = expr(expr.value);
+            return node(FIELD_ADD_ASSIGN, object, token(expr.name), token(expr.operator), value);
+        }
+
+        @Override
+        public Integer visitGetExpr(Expr.Get expr) {
+            int object = expr(expr.object);
+            return node(GET, object, token(expr.name));
+        }
+
+        @Override
+        public Integer visitGroupingExpr(Expr.Grouping expr) {
+            return node(GROUPING, expr(expr.expression));
+        }
+
+        @Override
+        public Integer visitHoistedExpr(Expr.Hoisted expr) {
+            return node(HOISTED, expr(expr.expression), expr.loop, expr.slot);
+        }
+
+        @Override
+        public Integer visitIncrementExpr(Expr.Increment expr) {
+            return node(INCREMENT, token(expr.name), token(expr.operator),
+                    constant(expr.delta), depth(expr));
+        }
+
+        @Override
+        public Integer visitIndexExpr(Expr.Index expr) {
+            int object = expr(expr.object);
+            int index = expr(expr.index);
+            return node(INDEX, object, token(expr.bracket), index);
+        }
+
+        @Override
+        public Integer visitIndexSetExpr(Expr.IndexSet expr) {
+            int object = expr(expr.object);
+            int index = expr(expr.index);
+            int value = expr(expr.value);
+            return node(INDEX_SET, object, token(expr.bracket), index, value);
+        }
+
+        @Override
+        public Integer visitListLiteralExpr(Expr.ListLiteral expr) {
+            int[] elements = exprs(expr.elements);
+            return withList(LIST_LITERAL, new int[] {token(expr.bracket)}, elements);
+        }
+
+        @Override
+        public Integer visitLiteralExpr(Expr.Literal expr) {
+            return node(LITERAL, constant(expr.value));
+        }
+
+        @Override
+        public Integer visitLogicalExpr(Expr.Logical expr) {
+            int left = expr(expr.left);
+            int right = expr(expr.right);
+            return node(LOGICAL, left, token(expr.operator), right);
+        }
+
+        @Override
+        public Integer visitSetExpr(Expr.Set expr) {
+            int object = expr(expr.object);
+            int value = expr(expr.value);
+            return node(SET, object, token(expr.name), value);
+        }
+
+        @Override
+        public Integer visitThisExpr(Expr.This expr) {
+            return node(THIS, token(expr.keyword), depth(expr));
+        }
+
+        @Override
+        public Integer visitUnaryExpr(Expr.Unary expr) {
+            return node(UNARY, token(expr.operator), expr(expr.right));
+        }
+
+        @Override
+        public Integer visitVariableExpr(Expr.Variable expr) {
+            return node(VARIABLE, token(expr.name), depth(expr));
+        }
+
+        @Override
+        public Integer visitBlockStmt(Stmt.Block stmt) {
+            int[] statements = new int[stmt.statements.size()];
+            for (int i = 0; i < statements.length; i++) {
+                statements[i] = stmt(stmt.statements.get(i));
+            }
+            return withList(BLOCK, new int[0], statements);
+        }
+
+        @Override
+        public Integer visitClassStmt(Stmt.Class stmt) {
+            int[] methods = new int[stmt.methods.size()];
+            for (int i = 0; i < methods.length; i++) {
+                methods[i] = stmt(stmt.methods.get(i));
+            }
+            return withList(CLASS, new int[] {token(stmt.name)}, methods);
+        }
+
+        @Override
+        public Integer visitExpressionStmt(Stmt.Expression stmt) {
+            return node(EXPRESSION, expr(stmt.expression));
+        }
+
+        @Override
+        public Integer visitForInStmt(Stmt.ForIn stmt) {
+            int iterable = expr(stmt.iterable);
+            int body = stmt(stmt.body);
+            return node(FOR_IN, token(stmt.name), iterable, body);
+        }
+
+        @Override
+        public Integer visitFunctionStmt(Stmt.Function stmt) {
+            int[] body;
+            if (stmt.body instanceof LazyBody) {
+                body = new int[] {-1, constant(new LazyFunction((LazyBody) stmt.body))};
+            } else {
+                body = new int[stmt.body.size() + 1];
+                body[0] = stmt.body.size();
+                for (int i = 0; i < stmt.body.size(); i++) {
+                    body[i + 1] = stmt(stmt.body.get(i));
+                }
+            }
+
+            pendingSize = 0;
+            add(token(stmt.name));
+            add(stmt.generator ? 1 : 0);
+            add(stmt.params.size());
+            for (Token param : stmt.params) {
+                add(token(param));
+            }
+            for (int value : body) {
+                add(value);
+            }
+            return emit(FUNCTION, pending, pendingSize);
+        }
+
+        @Override
+        public Integer visitHoistedWhileStmt(Stmt.HoistedWhile stmt) {
+            int condition = expr(stmt.condition);
+            int body = stmt(stmt.body);
+            return node(HOISTED_WHILE, condition, body, stmt.loop, stmt.slots);
+        }
+
+        @Override
+        public Integer visitIfStmt(Stmt.If stmt) {
+            int condition = expr(stmt.condition);
+            int thenBranch = stmt(stmt.thenBranch);
+            int elseBranch = stmt(stmt.elseBranch);
+            return node(IF, condition, thenBranch, elseBranch);
+        }
+
+        @Override
+        public Integer visitPrintStmt(Stmt.Print stmt) {
+            return node(PRINT, expr(stmt.expression));
+        }
+
+        @Override
+        public Integer visitReturnStmt(Stmt.Return stmt) {
+            return node(RETURN, token(stmt.keyword), expr(stmt.value));
+        }
+
+        @Override
+        public Integer visitVarStmt(Stmt.Var stmt) {
+            return node(VAR, token(stmt.name), expr(stmt.initializer));
+        }
+
+        @Override
+        public Integer visitWhileStmt(Stmt.While stmt) {
+            int condition = expr(stmt.condition);
+            int body = stmt(stmt.body);
+            return node(WHILE, condition, body);
+        }
+
+        @Override
+        public Integer visitYieldStmt(Stmt.Yield stmt) {
+            return node(YIELD, token(stmt.keyword), expr(stmt.value));
+        }
+    }
+
+    private final class Decoder {
+        private final Interpreter interpreter;
+
+        Decoder(Interpreter interpreter) {
+            this.interpreter = interpreter;
+        }
+
+        private Expr resolved(Expr expr, int depth) {
+            if (depth >= 0)
+                interpreter.resolve(expr, depth);
+            return expr;
+        }
+
+        List<Stmt> statements(int list) {
+            int count = code[list];
+            List<Stmt> statements = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                statements.add(stmt(code[list + i]));
+            }
+            return statements;
+        }
+
+        private List<Expr> exprs(int list) {
+            int count = code[list];
+            List<Expr> exprs = new ArrayList<>(count);
+            for (int i = 1; i <= count; i++) {
+                exprs.add(expr(code[list + i]));
+            }
+            return exprs;
+        }
+
+        Expr expr(int n) {
+            if (n < 0)
+                return null;
+
+            switch (code[n]) {
+                case ASSIGN:
+                    return resolved(new Expr.Assign(token(code[n + 1]), expr(code[n + 2])),
+                            code[n + 3]);
+                case BINARY:
+                    return new Expr.Binary(expr(code[n + 1]), token(code[n + 2]),
+                            expr(code[n + 3]));
+                case CALL:
+                    return new Expr.Call(expr(code[n + 1]), token(code[n + 2]), exprs(n + 3));
+                case COMPARE_CONST:
+                    return resolved(new Expr.CompareConst(token(code[n + 1]), token(code[n + 2]),
+                            constant(code[n + 3])), code[n + 4]);
+                case COMPOUND_ASSIGN:
+                    return resolved(new Expr.CompoundAssign(token(code[n + 1]),
+                            token(code[n + 2]), expr(code[n + 3]), code[n + 4] != 0), code[n + 5]);
+                case COMPOUND_INDEX_SET:
+                    return new Expr.CompoundIndexSet(expr(code[n + 1]), token(code[n + 2]),
+                            expr(code[n + 3]), token(code[n + 4]), expr(code[n + 5]),
+                            code[n + 6] != 0);
+                case COMPOUND_SET:
+                    return new Expr.CompoundSet(expr(code[n + 1]), token(code[n + 2]),
+                            token(code[n + 3]), expr(code[n + 4]), code[n + 5] != 0);
+                case FIELD_ADD_ASSIGN:
+                    return new Expr.FieldAddAssign(expr(code[n + 1]), token(code[n + 2]),
+                            token(code[n + 3]), expr(code[n + 4]));
+                case GET:
+                    return new Expr.Get(expr(code[n + 1]), token(code[n + 2]));
+                case GROUPING:
+                    return new Expr.Grouping(expr(code[n + 1]));
+                case HOISTED:
+                    return new Expr.Hoisted(expr(code[n + 1]), code[n + 2], code[n + 3]);
+                case INCREMENT:
+                    return resolved(new Expr.Increment(token(code[n + 1]), token(code[n + 2]),
+                            constant(code[n + 3])), code[n + 4]);
+                case INDEX:
+                    return new Expr.Index(expr(code[n + 1]), token(code[n + 2]),
+                            expr(code[n + 3]));
+                case INDEX_SET:
+                    return new Expr.IndexSet(expr(code[n + 1]), token(code[n + 2]),
+                            expr(code[n + 3]), expr(code[n + 4]));
+                case LIST_LITERAL:
+                    return new Expr.ListLiteral(token(code[n + 1]), exprs(n + 2));
+                case LITERAL:
+                    return new Expr.Literal(constant(code[n + 1]));
+                case LOGICAL:
+                    return new Expr.Logical(expr(code[n + 1]), token(code[n + 2]),
+                            expr(code[n + 3]));
+                case SET:
+                    return new Expr.Set(expr(code[n + 1]), token(code[n + 2]), expr(code[n + 3]));
+                case THIS:
+                    return resolved(new Expr.This(token(code[n + 1])), code[n + 2]);
+                case UNARY:
+                    return new Expr.Unary(token(code[n + 1]), expr(code[n + 2]));
+                case VARIABLE:
+                    return resolved(new Expr.Variable(token(code[n + 1])), code[n + 2]);
+                default:
+                    throw new IllegalStateException("Not an expression node: " + code[n]);
+            }
+        }
+
+        Stmt stmt(int n) {
+            if (n < 0)
+                return null;
+
+            switch (code[n]) {
+                case BLOCK:
+                    return new Stmt.Block(statements(n + 1));
+                case CLASS: {
+                    List<Stmt.Function> methods = new ArrayList<>();
+                    for (int i = 1; i <= code[n + 2]; i++) {
+                        methods.add((Stmt.Function) stmt(code[n + 2 + i]));
+                    }
+                    return new Stmt.Class(token(code[n + 1]), methods);
+                }
+                case EXPRESSION:
+                    return new Stmt.Expression(expr(code[n + 1]));
+                case FOR_IN:
+                    return new Stmt.ForIn(token(code[n + 1]), expr(code[n + 2]), stmt(code[n + 3]));
+                case FUNCTION: {
+                    List<Token> params = new ArrayList<>();
+                    for (int i = 1; i <= code[n + 3]; i++) {
+                        params.add(token(code[n + 3 + i]));
+                    }
+                    int body = functionBody(n);
+                    List<Stmt> statements = code[body] < 0 ?
+                            ((LazyFunction) constants[code[body + 1]]).body : statements(body);
+                    return new Stmt.Function(token(code[n + 1]), params, statements,
+                            code[n + 2] != 0);
+                }
+                case HOISTED_WHILE:
+                    return new Stmt.HoistedWhile(expr(code[n + 1]), stmt(code[n + 2]),
+                            code[n + 3], code[n + 4]);
+                case IF:
+                    return new Stmt.If(expr(code[n + 1]), stmt(code[n + 2]), stmt(code[n + 3]));
+                case PRINT:
+                    return new Stmt.Print(expr(code[n + 1]));
+                case RETURN:
+                    return new Stmt.Return(token(code[n + 1]), expr(code[n + 2]));
+                case VAR:
+                    return new Stmt.Var(token(code[n + 1]), expr(code[n + 2]));
+                case WHILE:
+                    return new Stmt.While(expr(code[n + 1]), stmt(code[n + 2]));
+                case YIELD:
+                    return new Stmt.Yield(token(code[n + 1]), expr(code[n + 2]));
+                default:
+                    throw new IllegalStateException("Not a statement node: " + code[n]);
+            }
+        }
+    }
+}
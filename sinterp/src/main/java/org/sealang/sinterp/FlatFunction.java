@@ -0,0 +1,60 @@
+package org.sealang.sinterp;
+
+import java.util.List;
+
+// FlatAst 의 함수 노드로 만든 함수. 제너레이터가 아닌 함수만 이것으로 만든다.
+final class FlatFunction implements SInterpCallable {
+    private final FlatAst ast;
+    private final int node;
+    private final Environment closure;
+
+    FlatFunction(FlatAst ast, int node, Environment closure) {
+        this.ast = ast;
+        this.node = node;
+        this.closure = closure;
+    }
+
+    @Override
+    public String toString() {
+        return "<fn " + ast.token(ast.code[node + 1]).lexeme + ">";
+    }
+
+    @Override
+    public int arity() {
+        return ast.code[node + 3];
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Environment environment = new Environment(closure);
+        for (int i = 0; i < arguments.size(); i++) {
+            environment.define(ast.symbol(ast.code[node + 4 + i]), arguments.get(i));
+        }
+
+        FlatAst body = ast;
+        int list = ast.functionBody(node);
+        if (ast.code[list] < 0) {
+            body = load(interpreter, (FlatAst.LazyFunction) ast.constant(ast.code[list + 1]));
+            list = body.root;
+        }
+
+        try {
+            new FlatWalker(body, interpreter, environment).executeList(list);
+        } catch (Return returnValue) {
+            return returnValue.value;
+        }
+        return null;
+    }
+
+    // 파싱을 미룬 본문을 로드해서 평평하게 만든다. 여러 스레드가 동시에 만들어도 결과가 같다.
+    private FlatAst load(Interpreter interpreter, FlatAst.LazyFunction lazy) {
+        FlatAst flat = lazy.flat;
+        if (flat == null) {
+            List<Stmt> statements = lazy.body.load(interpreter,
+                    ast.decodeFunction(node, interpreter));
+            flat = FlatAst.encode(statements, interpreter);
+            lazy.flat = flat;
+        }
+        return flat;
+    }
+}
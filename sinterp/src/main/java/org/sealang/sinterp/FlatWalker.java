@@ -0,0 +1,455 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.sealang.sinterp.FlatAst.*;
+
+/*
+* FlatAst 의 int 배열을 바로 따라가며 실행하는 인터프리터. Interpreter 와 같은 의미로 동작한다.
+*
+* 함수 호출마다 새 FlatWalker 가 본문을 실행하므로 현재 환경과 루프 프레임이 호출끼리 섞이지 않는다.
+* 내장 함수에는 트리 인터프리터(interpreter)를 넘긴다. 클래스와 제너레이터 함수는 트리 인터프리터의
+* 객체(SInterpFunction, SInterpGenerator)가 실행하므로 그 선언만 Stmt 로 되돌려서 만든다.
+* */
+final class FlatWalker {
+    private static final Object UNSET = new Object();
+
+    private final FlatAst ast;
+    private final int[] code;
+    private final Interpreter interpreter;
+    private final Environment globals;
+    private Environment environment;
+    private Object[][] loopFrames = new Object[0][];
+
+    FlatWalker(FlatAst ast, Interpreter interpreter, Environment environment) {
+        this.ast = ast;
+        this.code = ast.code;
+        this.interpreter = interpreter;
+        this.globals = interpreter.globals;
+        this.environment = environment;
+    }
+
+    void interpret() {
+        try {
+            executeList(ast.root);
+        } catch (RuntimeError error) {
+            SInterp.runtimeError(error);
+        }
+    }
+
+    // list 위치의 개수 뒤에 이어진 문장들을 실행한다.
+    void executeList(int list) {
+        int end = list + code[list];
+        for (int i = list + 1; i <= end; i++) {
+            execute(code[i]);
+        }
+    }
+
+    private void executeBlock(int list, Environment environment) {
+        Environment previous = this.environment;
+        try {
+            this.environment = environment;
+            executeList(list);
+        } finally {
+            this.environment = previous;
+        }
+    }
+
+    private void execute(int n) {
+        switch (code[n]) {
+            case BLOCK:
+                executeBlock(n + 1, new Environment(environment));
+                return;
+
+            case CLASS: {
+                Stmt.Class stmt = ast.decodeClass(n, interpreter);
+                environment.define(stmt.name.symbol, null);
+                Map<Symbol, SInterpFunction> methods = new HashMap<>();
+                for (Stmt.Function method : stmt.methods) {
+                    methods.put(method.name.symbol, new SInterpFunction(method, environment));
+                }
+                environment.assign(stmt.name, new SInterpClass(stmt.name.lexeme, methods));
+                return;
+            }
+
+            case EXPRESSION:
+                evaluate(code[n + 1]);
+                return;
+
+            case FOR_IN:
+                executeForIn(n);
+                return;
+
+            case FUNCTION: {
+                SInterpCallable function;
+                if (code[n + 2] != 0) // 제너레이터
+                    function = new SInterpFunction(ast.decodeFunction(n, interpreter), environment);
+                else
+                    function = new FlatFunction(ast, n, environment);
+                environment.define(ast.symbol(code[n + 1]), function);
+                return;
+            }
+
+            case HOISTED_WHILE: {
+                int loop = code[n + 3];
+                if (loop >= loopFrames.length) {
+                    loopFrames = Arrays.copyOf(loopFrames,
+                            Math.max(loop + 1, loopFrames.length * 2));
+                }
+
+                Object[] previous = loopFrames[loop];
+                Object[] frame = new Object[code[n + 4]];
+                Arrays.fill(frame, UNSET);
+                loopFrames[loop] = frame;
+                try {
+                    while (Interpreter.isTruthy(evaluate(code[n + 1]))) {
+                        execute(code[n + 2]);
+                    }
+                } finally {
+                    loopFrames[loop] = previous;
+                }
+                return;
+            }
+
+            case IF:
+                if (Interpreter.isTruthy(evaluate(code[n + 1])))
+                    execute(code[n + 2]);
+                else if (code[n + 3] >= 0)
+                    execute(code[n + 3]);
+                return;
+
+            case PRINT:
+                System.out.println(Interpreter.stringify(evaluate(code[n + 1])));
+                return;
+
+            case RETURN:
+                throw new Return(code[n + 2] >= 0 ? evaluate(code[n + 2]) : null);
+
+            case VAR: {
+                Object value = code[n + 2] >= 0 ? evaluate(code[n + 2]) : null;
+                environment.define(ast.symbol(code[n + 1]), value);
+                return;
+            }
+
+            case WHILE:
+                while (Interpreter.isTruthy(evaluate(code[n + 1]))) {
+                    execute(code[n + 2]);
+                }
+                return;
+
+            case YIELD:
+                // 제너레이터 본문은 트리 인터프리터가 실행한다.
+                throw new RuntimeError(ast.token(code[n + 1]), "Can't yield outside a generator.");
+
+            default:
+                throw new IllegalStateException("Not a statement node: " + code[n]);
+        }
+    }
+
+    private void executeForIn(int n) {
+        Object iterable = evaluate(code[n + 2]);
+        Token name = ast.token(code[n + 1]);
+
+        if (iterable instanceof SInterpList) {
+            SInterpList list = (SInterpList) iterable;
+            for (int i = 0; i < list.size(); i++) {
+                executeForInBody(n, list.get(i));
+            }
+        } else if (iterable instanceof SInterpMap) {
+            SInterpList keys = ((SInterpMap) iterable).keys();
+            for (int i = 0; i < keys.size(); i++) {
+                executeForInBody(n, keys.get(i));
+            }
+        } else if (iterable instanceof SInterpGenerator) {
+            SInterpGenerator generator = (SInterpGenerator) iterable;
+            for (Object value = generator.next(name); value != SInterpGenerator.DONE;
+                    value = generator.next(name)) {
+                executeForInBody(n, value);
+            }
+        } else {
+            throw new RuntimeError(name, "Can only iterate over lists, maps and generators.");
+        }
+    }
+
+    private void executeForInBody(int n, Object value) {
+        Environment environment = new Environment(this.environment);
+        environment.define(ast.symbol(code[n + 1]), value);
+        Environment previous = this.environment;
+        try {
+            this.environment = environment;
+            execute(code[n + 3]);
+        } finally {
+            this.environment = previous;
+        }
+    }
+
+    private Object evaluate(int n) {
+        switch (code[n]) {
+            case ASSIGN: {
+                Object value = evaluate(code[n + 2]);
+                int depth = code[n + 3];
+                if (depth >= 0)
+                    environment.ancestor(depth).define(ast.symbol(code[n + 1]), value);
+                else
+                    globals.assign(ast.token(code[n + 1]), value);
+                return value;
+            }
+
+            case BINARY: {
+                Object left = evaluate(code[n + 1]);
+                Object right = evaluate(code[n + 3]);
+                return Interpreter.binaryOp(ast.token(code[n + 2]), left, right);
+            }
+
+            case CALL:
+                return call(n);
+
+            case COMPARE_CONST: {
+                Object left = lookUp(code[n + 1], code[n + 4]);
+                return Interpreter.binaryOp(ast.token(code[n + 2]), left,
+                        ast.constant(code[n + 3]));
+            }
+
+            case COMPOUND_ASSIGN: {
+                Environment target = target(code[n + 5]);
+                Token name = ast.token(code[n + 1]);
+                Object current = target.getHere(name);
+                Object value = Interpreter.binaryOp(ast.token(code[n + 2]), current,
+                        evaluate(code[n + 3]));
+                target.assignHere(name, value);
+                return code[n + 4] != 0 ? current : value;
+            }
+
+            case COMPOUND_INDEX_SET: {
+                Object object = evaluate(code[n + 1]);
+                Object index = evaluate(code[n + 3]);
+                Token bracket = ast.token(code[n + 2]);
+                Token operator = ast.token(code[n + 4]);
+                if (object instanceof SInterpList) {
+                    SInterpList list = (SInterpList) object;
+                    int at = Interpreter.listIndex(bracket, list, index);
+                    Object current = list.get(at);
+                    Object value = Interpreter.binaryOp(operator, current, evaluate(code[n + 5]));
+                    list.set(at, value);
+                    return code[n + 6] != 0 ? current : value;
+                }
+                if (object instanceof SInterpMap) {
+                    SInterpMap map = (SInterpMap) object;
+                    Object key = Interpreter.mapKey(bracket, index);
+                    Object current = map.get(key);
+                    Object value = Interpreter.binaryOp(operator, current, evaluate(code[n + 5]));
+                    map.put(key, value);
+                    return code[n + 6] != 0 ? current : value;
+                }
+                throw new RuntimeError(bracket, "Only lists and maps can be indexed.");
+            }
+
+            case COMPOUND_SET: {
+                SInterpInstance instance = instance(evaluate(code[n + 1]), code[n + 2],
+                        "Only instances have fields.");
+                Token name = ast.token(code[n + 2]);
+                Object current = instance.get(name);
+                Object value = Interpreter.binaryOp(ast.token(code[n + 3]), current,
+                        evaluate(code[n + 4]));
+                instance.set(name, value);
+                return code[n + 5] != 0 ? current : value;
+            }
+
+            case FIELD_ADD_ASSIGN: {
+                SInterpInstance instance = instance(evaluate(code[n + 1]), code[n + 2],
+                        "Only instances have fields.");
+                Token name = ast.token(code[n + 2]);
+                Object field = instance.get(name);
+                Object value = Interpreter.binaryOp(ast.token(code[n + 3]), field,
+                        evaluate(code[n + 4]));
+                instance.set(name, value);
+                return value;
+            }
+
+            case GET:
+                return instance(evaluate(code[n + 1]), code[n + 2],
+                        "Only instances have properties.").get(ast.token(code[n + 2]));
+
+            case GROUPING:
+                return evaluate(code[n + 1]);
+
+            case HOISTED: {
+                Object[] frame = loopFrames[code[n + 2]];
+                Object value = frame[code[n + 3]];
+                if (value == UNSET) {
+                    value = evaluate(code[n + 1]);
+                    frame[code[n + 3]] = value;
+                }
+                return value;
+            }
+
+            case INCREMENT: {
+                Environment target = target(code[n + 4]);
+                Token name = ast.token(code[n + 1]);
+                Object value = Interpreter.binaryOp(ast.token(code[n + 2]),
+                        target.getHere(name), ast.constant(code[n + 3]));
+                target.assignHere(name, value);
+                return value;
+            }
+
+            case INDEX: {
+                Object object = evaluate(code[n + 1]);
+                Object index = evaluate(code[n + 3]);
+                Token bracket = ast.token(code[n + 2]);
+                if (object instanceof SInterpList) {
+                    SInterpList list = (SInterpList) object;
+                    return list.get(Interpreter.listIndex(bracket, list, index));
+                }
+                if (object instanceof SInterpMap)
+                    return ((SInterpMap) object).get(Interpreter.mapKey(bracket, index));
+                throw new RuntimeError(bracket, "Only lists and maps can be indexed.");
+            }
+
+            case INDEX_SET: {
+                Object object = evaluate(code[n + 1]);
+                Object index = evaluate(code[n + 3]);
+                Object value = evaluate(code[n + 4]);
+                Token bracket = ast.token(code[n + 2]);
+                if (object instanceof SInterpList) {
+                    SInterpList list = (SInterpList) object;
+                    list.set(Interpreter.listIndex(bracket, list, index), value);
+                    return value;
+                }
+                if (object instanceof SInterpMap) {
+                    ((SInterpMap) object).put(Interpreter.mapKey(bracket, index), value);
+                    return value;
+                }
+                throw new RuntimeError(bracket, "Only lists and maps can be indexed.");
+            }
+
+            case LIST_LITERAL: {
+                int count = code[n + 2];
+                SInterpList list = new SInterpList(count);
+                for (int i = 1; i <= count; i++) {
+                    list.add(evaluate(code[n + 2 + i]));
+                }
+                return list;
+            }
+
+            case LITERAL:
+                return ast.constant(code[n + 1]);
+
+            case LOGICAL: {
+                Object left = evaluate(code[n + 1]);
+                if (ast.tokenType(code[n + 2]) == TokenType.OR) {
+                    if (Interpreter.isTruthy(left))
+                        return left;
+                } else if (!Interpreter.isTruthy(left)) {
+                    return left;
+                }
+                return evaluate(code[n + 3]);
+            }
+
+            case SET: {
+                SInterpInstance instance = instance(evaluate(code[n + 1]), code[n + 2],
+                        "Only instances have fields.");
+                Object value = evaluate(code[n + 3]);
+                instance.set(ast.token(code[n + 2]), value);
+                return value;
+            }
+
+            case THIS:
+                return null;
+
+            case UNARY: {
+                Object right = evaluate(code[n + 2]);
+                switch (ast.tokenType(code[n + 1])) {
+                    case BANG:
+                        return !Interpreter.isTruthy(right);
+                    case MINUS:
+                        Interpreter.checkNumberOperand(ast.token(code[n + 1]), right);
+                        return NumberOps.negate(right);
+                }
+                return null; // unreachable
+            }
+
+            case VARIABLE:
+                return lookUp(code[n + 1], code[n + 2]);
+
+            default:
+                throw new IllegalStateException("Not an expression node: " + code[n]);
+        }
+    }
+
+    private Object lookUp(int name, int depth) {
+        if (depth >= 0)
+            return environment.getAt(depth, ast.symbol(name));
+        return globals.get(ast.token(name));
+    }
+
+    // 변수가 있는 환경. 한 번만 찾아서 읽고 쓴다.
+    private Environment target(int depth) {
+        return depth >= 0 ? environment.ancestor(depth) : globals;
+    }
+
+    private SInterpInstance instance(Object object, int name, String message) {
+        if (object instanceof SInterpInstance)
+            return (SInterpInstance) object;
+        throw new RuntimeError(ast.token(name), message);
+    }
+
+    private Object call(int n) {
+        Object callee = evaluate(code[n + 1]);
+        Token paren = ast.token(code[n + 2]);
+        int count = code[n + 3];
+
+        // 인자가 적은 내장 함수는 인자 리스트를 만들지 않고 바로 호출한다.
+        if (callee instanceof NativeMethod) {
+            NativeMethod function = (NativeMethod) callee;
+            if (function.arity() == count && count <= NativeMethod.MAX_DIRECT_ARITY)
+                return callNative(n, paren, function);
+        }
+
+        List<Object> arguments = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            arguments.add(evaluate(code[n + 3 + i]));
+        }
+
+        if (!(callee instanceof SInterpCallable))
+            throw new RuntimeError(paren, "Can only call functions and classes.");
+
+        SInterpCallable function = (SInterpCallable) callee;
+        if (arguments.size() != function.arity()) {
+            throw new RuntimeError(paren, "Expected " +
+                    function.arity() + " arguments but got " +
+                    arguments.size() + ".");
+        }
+
+        try {
+            return function.call(interpreter, arguments);
+        } catch (NativeError error) {
+            throw new RuntimeError(paren, error.getMessage());
+        }
+    }
+
+    private Object callNative(int n, Token paren, NativeMethod function) {
+        try {
+            switch (code[n + 3]) {
+                case 0:
+                    return function.call0(interpreter);
+                case 1:
+                    return function.call1(interpreter, evaluate(code[n + 4]));
+                case 2: {
+                    Object a = evaluate(code[n + 4]);
+                    return function.call2(interpreter, a, evaluate(code[n + 5]));
+                }
+                default: {
+                    Object a = evaluate(code[n + 4]);
+                    Object b = evaluate(code[n + 5]);
+                    return function.call3(interpreter, a, b, evaluate(code[n + 6]));
+                }
+            }
+        } catch (NativeError error) {
+            throw new RuntimeError(paren, error.getMessage());
+        }
+    }
+}
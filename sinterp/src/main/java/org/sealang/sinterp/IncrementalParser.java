@@ -0,0 +1,235 @@
+package org.sealang.sinterp;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+* 편집기 연동용 증분 파서. 소스를 최상위 선언 단위(Unit)로 나눠 각 선언의 AST 를 들고 있고,
+* edit 로 바뀐 구간을 받으면 그 구간을 덮는 선언들만 다시 스캔/파싱한다.
+* 인터프리터 자신은 쓰지 않는, 편집기 연동이 직접 부르는 진입점이다.
+*
+* 다시 파싱하는 구간은 편집 위치를 포함한 선언과 그 바로 앞 선언부터(앞 선언에 else 가
+* 붙을 수 있다), 편집 끝을 포함한 선언까지이다. 편집으로 괄호나 문자열이 열린 채 끝나서
+* 구간의 끝이 선언 경계가 아니게 되면 뒤 선언을 하나씩 더 포함한다.
+* 나머지 선언의 Stmt 는 그대로 재사용하고, 줄 수가 바뀌었으면 그 토큰의 라인만 옮긴다.
+*
+* 구문 에러는 출력하지 않고 선언별로 표시만 한다. -Dsinterp.incrementalCheck=true 이면
+* 편집할 때마다 전체를 다시 파싱해서 결과가 같은지 확인한다.
+* */
+final class IncrementalParser {
+    private static final boolean selfCheck = SInterp.option("incrementalCheck", false);
+
+    private char[] source;
+    // 소스 전체를 빈틈없이 덮는다. 항상 하나 이상 있다.
+    private final List<Unit> units = new ArrayList<>();
+    // 마지막 parseRegion 에서 구간 끝의 라인
+    private int regionEndLine;
+
+    // 최상위 선언 하나. 선언 앞의 공백과 주석을 포함한다.
+    private static class Unit {
+        int from;
+        int to;
+        int line; // from 위치의 라인
+        final List<Stmt> statements;
+        final List<Token> tokens; // statements 가 가진 토큰. 라인을 옮길 때 쓴다.
+        final boolean hadError;
+
+        Unit(int from, int to, int line, List<Stmt> statements, List<Token> tokens,
+             boolean hadError) {
+            this.from = from;
+            this.to = to;
+            this.line = line;
+            this.statements = statements;
+            this.tokens = tokens;
+            this.hadError = hadError;
+        }
+    }
+
+    IncrementalParser(String source) {
+        this.source = source.toCharArray();
+        units.addAll(parseRegion(0, this.source.length, 1));
+        check();
+    }
+
+    String source() {
+        return new String(source);
+    }
+
+    List<Stmt> statements() {
+        List<Stmt> statements = new ArrayList<>();
+        for (Unit unit : units) {
+            statements.addAll(unit.statements);
+        }
+        return statements;
+    }
+
+    boolean hadError() {
+        for (Unit unit : units) {
+            if (unit.hadError)
+                return true;
+        }
+        return false;
+    }
+
+    // source[from, to) 를 text 로 바꾼다.
+    void edit(int from, int to, String text) {
+        if (from < 0 || from > to || to > source.length)
+            throw new IndexOutOfBoundsException("Edit range " + from + ".." + to +
+                    " is outside the source.");
+
+        int delta = text.length() - (to - from);
+        char[] edited = new char[source.length + delta];
+        System.arraycopy(source, 0, edited, 0, from);
+        text.getChars(0, text.length(), edited, from);
+        System.arraycopy(source, to, edited, from + text.length(), source.length - to);
+        source = edited;
+
+        int first = Math.max(0, unitAt(Math.max(0, from - 1)) - 1);
+        int last = unitAt(Math.max(0, to - 1));
+
+        // 구간 끝이 선언 경계가 될 때까지 뒤 선언을 더한다. 닫히지 않은 괄호가 멀리까지
+        // 이어질 수 있으므로 더하는 선언 수를 두 배씩 늘린다.
+        List<Unit> replaced;
+        int step = 1;
+        while (true) {
+            int end = units.get(last).to + delta;
+            replaced = parseRegion(units.get(first).from, end, units.get(first).line);
+            if (replaced != null)
+                break;
+            last = Math.min(units.size() - 1, last + step);
+            step *= 2;
+        }
+
+        // 뒤 선언들의 위치와 라인을 옮긴다.
+        if (last + 1 < units.size()) {
+            Unit next = units.get(last + 1);
+            int lineDelta = regionEndLine - next.line;
+            for (int i = last + 1; i < units.size(); i++) {
+                Unit unit = units.get(i);
+                unit.from += delta;
+                unit.to += delta;
+                if (lineDelta != 0) {
+                    unit.line += lineDelta;
+                    for (Token token : unit.tokens) {
+                        token.line += lineDelta;
+                    }
+                }
+            }
+        }
+
+        units.subList(first, last + 1).clear();
+        units.addAll(first, replaced);
+        check();
+    }
+
+    // source[from, to) 를 선언 단위로 파싱한다. to 가 선언 경계가 아니면 null
+    private List<Unit> parseRegion(int from, int to, int line) {
+        List<int[]> bounds = ParallelParser.split(source, from, to, line, 0);
+        if (bounds == null) {
+            if (to < source.length)
+                return null;
+            // 괄호가 맞지 않는 꼬리. 나누지 않고 한 번에 파싱한다.
+            bounds = Arrays.asList(new int[] {from, line}, new int[] {to, endLine(from, to, line)});
+        }
+
+        List<Unit> parsed = new ArrayList<>();
+        for (int i = 0; i + 1 < bounds.size(); i++) {
+            parsed.add(parseUnit(bounds.get(i)[0], bounds.get(i + 1)[0], bounds.get(i)[1]));
+        }
+        regionEndLine = bounds.get(bounds.size() - 1)[1];
+        return parsed;
+    }
+
+    private Unit parseUnit(int from, int to, int line) {
+        List<Token> tokens = new ArrayList<>();
+        List<List<Stmt>> result = new ArrayList<>(1);
+        boolean hadError = SInterp.hadSilentError(() -> {
+            TokenStream stream = new Scanner(source, from, to, line).scanPacked();
+            stream.collectTokens(tokens);
+            result.add(new Parser(stream).parse());
+        });
+        return new Unit(from, to, line, result.get(0), tokens, hadError);
+    }
+
+    private int endLine(int from, int to, int line) {
+        for (int i = from; i < to; i++) {
+            if (source[i] == '\n')
+                line++;
+        }
+        return line;
+    }
+
+    // position 을 포함한 선언의 인덱스. 소스 끝이면 마지막 선언
+    private int unitAt(int position) {
+        int low = 0;
+        int high = units.size() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (units.get(middle).from <= position)
+                low = middle;
+            else
+                high = middle - 1;
+        }
+        return low;
+    }
+
+    // 자체 검사. 전체를 다시 파싱한 결과와 구조가 같은지 확인한다.
+    private void check() {
+        if (!selfCheck)
+            return;
+
+        // 에러가 나면 복구 위치에 따라 AST 가 달라지므로 에러 여부만 비교한다.
+        Unit full = parseUnit(0, source.length, 1);
+        if (full.hadError != hadError())
+            throw new IllegalStateException("Incremental parse " +
+                    (full.hadError ? "missed" : "reported") + " a syntax error.");
+        if (!full.hadError && !sameTree(full.statements, statements()))
+            throw new IllegalStateException("Incremental parse differs from a full parse.");
+    }
+
+    // 두 AST 의 구조가 같은지. 리스트는 구현 클래스와 상관없이 원소를 비교한다.
+    static boolean sameTree(Object a, Object b) {
+        if (a == b)
+            return true;
+        if (a instanceof List && b instanceof List) {
+            List<?> left = (List<?>) a;
+            List<?> right = (List<?>) b;
+            if (left.size() != right.size())
+                return false;
+            for (int i = 0; i < left.size(); i++) {
+                if (!sameTree(left.get(i), right.get(i)))
+                    return false;
+            }
+            return true;
+        }
+
+        if (a == null || b == null || a.getClass() != b.getClass())
+            return false;
+
+        if (a instanceof Token) {
+            Token left = (Token) a;
+            Token right = (Token) b;
+            return left.type == right.type && left.lexeme.equals(right.lexeme) &&
+                    left.line == right.line && sameTree(left.literal, right.literal);
+        }
+
+        if (a instanceof Expr || a instanceof Stmt) {
+            for (Field field : a.getClass().getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers()))
+                    continue;
+                try {
+                    if (!sameTree(field.get(a), field.get(b)))
+                        return false;
+                } catch (IllegalAccessException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return true;
+        }
+
+        return a.equals(b);
+    }
+}
@@ -0,0 +1,474 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+/*
+* Inliner
+* 역할 : 리졸브 전에 작은 전역 함수의 호출을 함수 본문 식으로 치환한다.
+*
+* 인라인 조건
+*  - 최상위에 한 번만 선언된 함수이고, 프로그램 어디에서도 같은 이름으로 대입되지 않는다.
+*  - 본문이 "return 식;" 한 문장이고, 식의 노드 수가 MAX_NODES 이하이다.
+*  - 식에 호출/대입/this 가 없어 부수효과가 없고, 자기 자신을 참조하지 않는다.
+*  - 모든 파라미터가 식에서 한 번 이상 사용된다. (인자 평가 시의 에러가 사라지지 않도록)
+*  - 호출 지점의 인자는 리터럴이나 변수뿐이고, 함수 이름과 본문의 자유 변수가
+*    호출 지점에서 지역 변수로 가려지지 않는다.
+*  - 호출 지점이 함수 선언보다 뒤에 있다. (선언 전 호출의 Undefined variable 에러를 유지)
+*
+* 파싱을 미룬 본문(LazyBody)은 로드할 때 inlineBody 로 처리한다. 후보는 프로그램을 읽을 때 모아 두고,
+* 본문마다 그 함수 선언 시점에 선언이 지나간 후보만 쓴다.
+* */
+class Inliner extends AstRewriter {
+    static final int MAX_NODES = 16;
+
+    private final Map<String, Candidate> candidates = new HashMap<>();
+    private final Set<String> available = new HashSet<>(); // 선언이 이미 지나간 후보
+    private final Stack<Set<String>> scopes = new Stack<>();
+    private int inlined = 0;
+    // 파싱을 미룬 본문별로, 그 함수가 선언될 때 선언이 지나간 후보
+    private final Map<LazyBody, Set<String>> lazyAvailable = new IdentityHashMap<>();
+
+    private static class Candidate {
+        final Stmt.Function function;
+        final Expr body;
+        final Set<String> freeNames;
+
+        Candidate(Stmt.Function function, Expr body, Set<String> freeNames) {
+            this.function = function;
+            this.body = body;
+            this.freeNames = freeNames;
+        }
+    }
+
+    List<Stmt> inline(List<Stmt> statements) {
+        collectCandidates(statements);
+        if (candidates.isEmpty())
+            return statements;
+
+        List<Stmt> result = new ArrayList<>(statements.size());
+        for (Stmt statement : statements) {
+            recordLazyBodies(statement);
+            result.add(rewrite(statement));
+            declared(statement);
+        }
+
+        return inlined == 0 ? statements : result;
+    }
+
+    // 이미 인라인을 마친 프로그램(캐시된 AST)에서 후보만 모은다. 이후 로드되는 본문에 inlineBody 를 쓴다.
+    void collect(List<Stmt> statements) {
+        collectCandidates(statements);
+        for (Stmt statement : statements) {
+            recordLazyBodies(statement);
+            declared(statement);
+        }
+    }
+
+    // 처음 호출될 때 파싱한 본문 body 에서 후보 호출을 인라인한다. 리졸브 전에 부른다.
+    List<Stmt> inlineBody(Stmt.Function function, LazyBody lazy, List<Stmt> body) {
+        Set<String> availableHere = lazyAvailable.get(lazy);
+        if (availableHere == null || availableHere.isEmpty())
+            return body;
+
+        available.clear();
+        available.addAll(availableHere);
+        scopes.clear();
+        // 메서드 본문은 클래스 스코프의 this 안에 있다.
+        if (lazy.method) {
+            beginScope();
+            scopes.peek().add("this");
+        }
+        beginScope();
+        for (Token param : function.params) {
+            declare(param);
+        }
+        List<Stmt> result = rewrite(body);
+        scopes.clear();
+        return result;
+    }
+
+    private void recordLazyBodies(Stmt statement) {
+        if (statement instanceof Stmt.Function) {
+            recordLazyBody((Stmt.Function) statement);
+        } else if (statement instanceof Stmt.Class) {
+            for (Stmt.Function method : ((Stmt.Class) statement).methods) {
+                recordLazyBody(method);
+            }
+        }
+    }
+
+    private void recordLazyBody(Stmt.Function function) {
+        if (function.body instanceof LazyBody)
+            lazyAvailable.put((LazyBody) function.body, Set.copyOf(available));
+    }
+
+    // 선언문이 실행된 뒤부터 인라인 가능
+    private void declared(Stmt statement) {
+        if (statement instanceof Stmt.Function) {
+            String name = ((Stmt.Function) statement).name.lexeme;
+            if (candidates.containsKey(name))
+                available.add(name);
+        }
+    }
+
+    private void collectCandidates(List<Stmt> statements) {
+        // 최상위 선언 횟수. 두 번 이상 선언되면 재정의된 것이다.
+        Map<String, Integer> declarations = new HashMap<>();
+        for (Stmt statement : statements) {
+            Token name = null;
+            if (statement instanceof Stmt.Function)
+                name = ((Stmt.Function) statement).name;
+            else if (statement instanceof Stmt.Var)
+                name = ((Stmt.Var) statement).name;
+            else if (statement instanceof Stmt.Class)
+                name = ((Stmt.Class) statement).name;
+            if (name != null)
+                declarations.merge(name.lexeme, 1, Integer::sum);
+        }
+
+        // 대입되는 이름은 스코프에 상관없이 모두 후보에서 제외한다.
+        Set<String> assigned = new HashSet<>();
+        new AstRewriter() {
+            @Override
+            public Expr visitAssignExpr(Expr.Assign expr) {
+                assigned.add(expr.name.lexeme);
+                return super.visitAssignExpr(expr);
+            }
+
+            @Override
+            public Expr visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+                assigned.add(expr.name.lexeme);
+                return super.visitCompoundAssignExpr(expr);
+            }
+
+            // 파싱을 미룬 본문은 파서가 모아 둔 이름을 쓴다.
+            @Override
+            Stmt.Function rewriteFunction(Stmt.Function function) {
+                if (function.body instanceof LazyBody)
+                    assigned.addAll(((LazyBody) function.body).assignedNames);
+                return super.rewriteFunction(function);
+            }
+        }.rewrite(statements);
+
+        for (Stmt statement : statements) {
+            if (!(statement instanceof Stmt.Function))
+                continue;
+            Stmt.Function function = (Stmt.Function) statement;
+            String name = function.name.lexeme;
+            if (declarations.get(name) != 1 || assigned.contains(name))
+                continue;
+
+            Candidate candidate = analyze(function);
+            if (candidate != null)
+                candidates.put(name, candidate);
+        }
+    }
+
+    private Candidate analyze(Stmt.Function function) {
+        if (function.body instanceof LazyBody ||
+                function.body.size() != 1 ||
+                !(function.body.get(0) instanceof Stmt.Return))
+            return null;
+        Expr body = ((Stmt.Return) function.body.get(0)).value;
+        if (body == null)
+            return null;
+
+        BodyScanner scanner = new BodyScanner();
+        body.accept(scanner);
+        if (!scanner.inlinable || scanner.nodes > MAX_NODES)
+            return null;
+
+        Set<String> params = new HashSet<>();
+        for (Token param : function.params) {
+            // 중복 파라미터는 리졸버가 에러로 처리하도록 그대로 둔다.
+            if (!params.add(param.lexeme) || !scanner.names.contains(param.lexeme))
+                return null;
+        }
+
+        // 재귀 함수 제외
+        if (scanner.names.contains(function.name.lexeme))
+            return null;
+
+        Set<String> freeNames = new HashSet<>(scanner.names);
+        freeNames.removeAll(params);
+        return new Candidate(function, body, freeNames);
+    }
+
+    @Override
+    public Expr visitCallExpr(Expr.Call expr) {
+        Expr rewritten = super.visitCallExpr(expr); // 인자 안의 호출을 먼저 인라인
+        if (!(rewritten instanceof Expr.Call))
+            return rewritten;
+
+        Expr.Call call = (Expr.Call) rewritten;
+        if (!(call.callee instanceof Expr.Variable))
+            return call;
+
+        String name = ((Expr.Variable) call.callee).name.lexeme;
+        Candidate candidate = candidates.get(name);
+        if (candidate == null || !available.contains(name) || isShadowed(name))
+            return call;
+
+        List<Token> params = candidate.function.params;
+        if (call.arguments.size() != params.size())
+            return call;
+
+        Map<String, Expr> substitutions = new HashMap<>();
+        for (int i = 0; i < params.size(); i++) {
+            Expr argument = call.arguments.get(i);
+            if (!(argument instanceof Expr.Literal) && !(argument instanceof Expr.Variable))
+                return call;
+            substitutions.put(params.get(i).lexeme, argument);
+        }
+
+        for (String free : candidate.freeNames) {
+            if (isShadowed(free))
+                return call;
+        }
+
+        inlined++;
+        return new Substitution(substitutions).rewrite(candidate.body);
+    }
+
+    @Override
+    public Stmt visitBlockStmt(Stmt.Block stmt) {
+        beginScope();
+        Stmt result = super.visitBlockStmt(stmt);
+        endScope();
+        return result;
+    }
+
+    @Override
+    public Stmt visitClassStmt(Stmt.Class stmt) {
+        declare(stmt.name);
+        beginScope();
+        scopes.peek().add("this");
+        Stmt result = super.visitClassStmt(stmt);
+        endScope();
+        return result;
+    }
+
+    @Override
+    public Stmt visitForInStmt(Stmt.ForIn stmt) {
+        Expr iterable = rewrite(stmt.iterable);
+        beginScope();
+        declare(stmt.name);
+        Stmt body = rewrite(stmt.body);
+        endScope();
+        if (iterable == stmt.iterable && body == stmt.body)
+            return stmt;
+        return new Stmt.ForIn(stmt.name, iterable, body);
+    }
+
+    @Override
+    public Stmt visitFunctionStmt(Stmt.Function stmt) {
+        declare(stmt.name);
+        return super.visitFunctionStmt(stmt);
+    }
+
+    @Override
+    Stmt.Function rewriteFunction(Stmt.Function function) {
+        beginScope();
+        for (Token param : function.params) {
+            declare(param);
+        }
+        Stmt.Function result = super.rewriteFunction(function);
+        endScope();
+        return result;
+    }
+
+    @Override
+    public Stmt visitVarStmt(Stmt.Var stmt) {
+        declare(stmt.name);
+        return super.visitVarStmt(stmt);
+    }
+
+    private void beginScope() {
+        scopes.push(new HashSet<>());
+    }
+
+    private void endScope() {
+        scopes.pop();
+    }
+
+    private void declare(Token name) {
+        if (scopes.isEmpty())
+            return;
+        scopes.peek().add(name.lexeme);
+    }
+
+    // 호출 지점에서 이름이 지역 변수로 가려졌는지 확인
+    private boolean isShadowed(String name) {
+        for (Set<String> scope : scopes) {
+            if (scope.contains(name))
+                return true;
+        }
+        return false;
+    }
+
+    // 인라인 가능한 식인지 검사하면서 노드 수와 참조하는 이름을 모은다.
+    private static class BodyScanner implements Expr.Visitor<Void> {
+        int nodes = 0;
+        boolean inlinable = true;
+        final Set<String> names = new HashSet<>();
+
+        private Void reject() {
+            inlinable = false;
+            return null;
+        }
+
+        @Override
+        public Void visitAssignExpr(Expr.Assign expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitBinaryExpr(Expr.Binary expr) {
+            nodes++;
+            expr.left.accept(this);
+            expr.right.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitCallExpr(Expr.Call expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitCompareConstExpr(Expr.CompareConst expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitCompoundSetExpr(Expr.CompoundSet expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitGetExpr(Expr.Get expr) {
+            nodes++;
+            expr.object.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitGroupingExpr(Expr.Grouping expr) {
+            nodes++;
+            expr.expression.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitHoistedExpr(Expr.Hoisted expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitIncrementExpr(Expr.Increment expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitIndexExpr(Expr.Index expr) {
+            nodes++;
+            expr.object.accept(this);
+            expr.index.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitIndexSetExpr(Expr.IndexSet expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitListLiteralExpr(Expr.ListLiteral expr) {
+            nodes++;
+            for (Expr element : expr.elements) {
+                element.accept(this);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visitLiteralExpr(Expr.Literal expr) {
+            nodes++;
+            return null;
+        }
+
+        @Override
+        public Void visitLogicalExpr(Expr.Logical expr) {
+            nodes++;
+            expr.left.accept(this);
+            expr.right.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitSetExpr(Expr.Set expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitThisExpr(Expr.This expr) {
+            return reject();
+        }
+
+        @Override
+        public Void visitUnaryExpr(Expr.Unary expr) {
+            nodes++;
+            expr.right.accept(this);
+            return null;
+        }
+
+        @Override
+        public Void visitVariableExpr(Expr.Variable expr) {
+            nodes++;
+            names.add(expr.name.lexeme);
+            return null;
+        }
+    }
+
+    // 함수 본문 식을 복사하면서 파라미터를 인자로 바꾼다.
+    // 리졸버가 노드 identity 로 거리를 기록하므로 변수 노드는 항상 새로 만든다.
+    private static class Substitution extends AstRewriter {
+        private final Map<String, Expr> arguments;
+
+        Substitution(Map<String, Expr> arguments) {
+            this.arguments = arguments;
+        }
+
+        @Override
+        public Expr visitVariableExpr(Expr.Variable expr) {
+            Expr argument = arguments.get(expr.name.lexeme);
+            if (argument instanceof Expr.Variable)
+                return new Expr.Variable(((Expr.Variable) argument).name);
+            if (argument != null)
+                return argument;
+            return new Expr.Variable(expr.name);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package org.sealang.sinterp;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.sealang.sinterp.TokenType.*;
+
+/*
+* InstructionFuser
+* 역할 : 리졸브가 끝난 뒤 자주 쓰이는 패턴을 한 번에 실행되는 합쳐진 노드(superinstruction)로 바꾼다.
+*
+*  i = i + 1, i = i - 2   → Expr.Increment      (변수를 한 번 찾아서 읽고 쓴다)
+*  i += 1, ++i            → Expr.Increment      (문장으로 쓰인 i++ 도 포함)
+*  i < 10                 → Expr.CompareConst   (변수와 숫자 상수 비교)
+*  x.f = x.f + y          → Expr.FieldAddAssign (객체를 한 번만 평가한다)
+*
+* 새 노드는 원래 노드와 같은 거리로 Interpreter 에 등록한다. (AstRewriter.keepDepth)
+* */
+class InstructionFuser extends AstRewriter {
+
+    // 패턴별로 합쳐진 지점의 수
+    private int increments = 0;
+    private int compares = 0;
+    private int fieldAddAssigns = 0;
+
+    InstructionFuser(Interpreter interpreter) {
+        super(interpreter);
+    }
+
+    List<Stmt> fuse(List<Stmt> statements) {
+        return rewrite(statements);
+    }
+
+    String report() {
+        return "increment=" + increments +
+                ", compare-const=" + compares +
+                ", field-add-assign=" + fieldAddAssigns;
+    }
+
+    @Override
+    public Expr visitAssignExpr(Expr.Assign expr) {
+        Expr rewritten = super.visitAssignExpr(expr);
+        if (!(rewritten instanceof Expr.Assign))
+            return rewritten;
+
+        // name = name (+|-) NUMBER
+        Expr.Assign assign = (Expr.Assign) rewritten;
+        if (!(assign.value instanceof Expr.Binary))
+            return assign;
+        Expr.Binary binary = (Expr.Binary) assign.value;
+        if (binary.operator.type != PLUS && binary.operator.type != MINUS)
+            return assign;
+        if (!isNumberLiteral(binary.right) || !isSameVariable(assign, binary.left))
+            return assign;
+
+        Expr.Increment increment = keepDepth(assign, new Expr.Increment(assign.name,
+                binary.operator, ((Expr.Literal) binary.right).value));
+        increments++;
+        return increment;
+    }
+
+    @Override
+    public Expr visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+        Expr rewritten = super.visitCompoundAssignExpr(expr);
+        if (!(rewritten instanceof Expr.CompoundAssign))
+            return rewritten;
+
+        // 후위 증감은 이전 값을 돌려줘야 하므로 값이 쓰이지 않는 문장에서만 합친다.
+        Expr.CompoundAssign assign = (Expr.CompoundAssign) rewritten;
+        if (assign.postfix || !isNumberLiteral(assign.value))
+            return assign;
+
+        return increment(assign, ((Expr.Literal) assign.value).value);
+    }
+
+    @Override
+    public Stmt visitExpressionStmt(Stmt.Expression stmt) {
+        Expr expression = stmt.expression;
+        if (expression instanceof Expr.CompoundAssign &&
+                ((Expr.CompoundAssign) expression).postfix &&
+                isNumberLiteral(((Expr.CompoundAssign) expression).value)) {
+            Expr.CompoundAssign assign = (Expr.CompoundAssign) expression;
+            return new Stmt.Expression(increment(assign, ((Expr.Literal) assign.value).value));
+        }
+        return super.visitExpressionStmt(stmt);
+    }
+
+    private Expr.Increment increment(Expr.CompoundAssign assign, Object delta) {
+        Expr.Increment increment = keepDepth(assign,
+                new Expr.Increment(assign.name, assign.operator, delta));
+        increments++;
+        return increment;
+    }
+
+    @Override
+    public Expr visitBinaryExpr(Expr.Binary expr) {
+        Expr rewritten = super.visitBinaryExpr(expr);
+        if (!(rewritten instanceof Expr.Binary))
+            return rewritten;
+
+        // name (<|<=|>|>=) NUMBER
+        Expr.Binary binary = (Expr.Binary) rewritten;
+        switch (binary.operator.type) {
+            case GREATER:
+            case GREATER_EQUAL:
+            case LESS:
+            case LESS_EQUAL:
+                break;
+            default:
+                return binary;
+        }
+        if (!(binary.left instanceof Expr.Variable) || !isNumberLiteral(binary.right))
+            return binary;
+
+        Expr.Variable variable = (Expr.Variable) binary.left;
+        Expr.CompareConst compare = keepDepth(variable, new Expr.CompareConst(variable.name,
+                binary.operator, ((Expr.Literal) binary.right).value));
+        compares++;
+        return compare;
+    }
+
+    @Override
+    public Expr visitSetExpr(Expr.Set expr) {
+        Expr rewritten = super.visitSetExpr(expr);
+        if (!(rewritten instanceof Expr.Set))
+            return rewritten;
+
+        // x.f = x.f (+|-) y
+        Expr.Set set = (Expr.Set) rewritten;
+        if (!(set.value instanceof Expr.Binary))
+            return set;
+        Expr.Binary binary = (Expr.Binary) set.value;
+        if (binary.operator.type != PLUS && binary.operator.type != MINUS)
+            return set;
+        if (!(binary.left instanceof Expr.Get))
+            return set;
+        Expr.Get get = (Expr.Get) binary.left;
+        if (!get.name.lexeme.equals(set.name.lexeme) || !isSameObject(set.object, get.object))
+            return set;
+
+        fieldAddAssigns++;
+        return new Expr.FieldAddAssign(set.object, set.name, binary.operator, binary.right);
+    }
+
+    private static boolean isNumberLiteral(Expr expr) {
+        return expr instanceof Expr.Literal &&
+                NumberOps.isNumber(((Expr.Literal) expr).value);
+    }
+
+    // 대입 대상과 읽는 변수가 같은 변수(같은 이름, 같은 거리)인지
+    private boolean isSameVariable(Expr.Assign assign, Expr expr) {
+        if (!(expr instanceof Expr.Variable))
+            return false;
+        Expr.Variable variable = (Expr.Variable) expr;
+        return variable.name.lexeme.equals(assign.name.lexeme) &&
+                Objects.equals(interpreter.depthOf(variable), interpreter.depthOf(assign));
+    }
+
+    // 두 식이 항상 같은 객체로 평가되는지 (같은 변수이거나 둘 다 this)
+    private boolean isSameObject(Expr a, Expr b) {
+        if (a instanceof Expr.This && b instanceof Expr.This)
+            return true;
+        if (!(a instanceof Expr.Variable) || !(b instanceof Expr.Variable))
+            return false;
+        return ((Expr.Variable) a).name.lexeme.equals(((Expr.Variable) b).name.lexeme) &&
+                Objects.equals(interpreter.depthOf(a), interpreter.depthOf(b));
+    }
+}
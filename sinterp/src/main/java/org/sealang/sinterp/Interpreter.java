@@ -1,33 +1,57 @@
 package org.sealang.sinterp;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 // AST 실행
 class Interpreter implements Expr.Visitor<Object>,
                              Stmt.Visitor<Void> {
 
-    final Environment globals = new Environment();
-    private Environment environment = globals;
-    private final Map<Expr, Integer> locals = new HashMap<>();
+    final Environment globals;
+    private Environment environment;
+    private final Map<Expr, Integer> locals;
+
+    // 루프 밖으로 끌어올린 불변식의 값. loop id 로 인덱싱하며, 재귀 호출에서도 섞이지 않도록
+    // 루프를 실행할 때마다 새 배열을 만들고 끝나면 이전 배열로 복구한다.
+    private Object[][] loopFrames = new Object[0][];
+    private static final Object UNSET = new Object();
+
+    // @Native 메서드로 전역 내장 함수를 제공하는 클래스들
+    private static final Class<?>[] NATIVES = {
+            SystemNatives.class,
+            ListNatives.class,
+            MapNatives.class,
+            NumericNatives.class,
+            ParallelNatives.class,
+            BufferNatives.class,
+            FileNatives.class,
+            MemoNatives.class,
+    };
+
+    // 제너레이터 본문을 실행하는 인터프리터일 때 값을 넘겨줄 채널. yield 에서 사용
+    SInterpGenerator.Channel generator;
 
     Interpreter() {
-        globals.define("clock", new SInterpCallable() {
-            @Override
-            public int arity() {
-                return 0;
-            }
+        globals = new Environment();
+        environment = globals;
+        // 지연 파싱한 함수 본문은 작업 스레드에서 로드될 수 있으므로 읽는 중에도 안전하게 추가한다.
+        locals = new ConcurrentHashMap<>();
 
-            @Override
-            public Object call(Interpreter interpreter, List<Object> arguments) {
-                return (double)System.currentTimeMillis() / 1000.0;
-            }
+        for (Class<?> natives : NATIVES) {
+            NativeRegistry.register(globals, natives);
+        }
+    }
 
-            @Override
-            public String toString() { return "<native fn>"; }
-        });
+    // 병렬 내장 함수의 작업 스레드용 인터프리터.
+    // 전역 환경과 리졸브 결과는 공유하고, 현재 환경과 루프 프레임은 따로 가진다.
+    Interpreter(Interpreter parent) {
+        globals = parent.globals;
+        environment = globals;
+        locals = parent.locals;
     }
 
 
@@ -47,22 +71,27 @@ class Interpreter implements Expr.Visitor<Object>,
         Object left = evaluate(expr.left);
         Object right = evaluate(expr.right);
 
-        switch (expr.operator.type) {
+        return binaryOp(expr.operator, left, right);
+    }
+
+    // 이항 연산. 합쳐진 노드(Increment, CompareConst, FieldAddAssign)도 같은 규칙을 쓴다.
+    static Object binaryOp(Token operator, Object left, Object right) {
+        switch (operator.type) {
             case GREATER:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left > (double)right;
+                checkNumberOperands(operator, left, right);
+                return NumberOps.less(right, left);
 
             case GREATER_EQUAL:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left >= (double) right;
+                checkNumberOperands(operator, left, right);
+                return NumberOps.lessEqual(right, left);
 
             case LESS:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left < (double) right;
+                checkNumberOperands(operator, left, right);
+                return NumberOps.less(left, right);
 
             case LESS_EQUAL:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left <= (double) right;
+                checkNumberOperands(operator, left, right);
+                return NumberOps.lessEqual(left, right);
 
             case BANG_EQUAL:
                 return !isEqual(left, right);
@@ -71,28 +100,32 @@ class Interpreter implements Expr.Visitor<Object>,
                 return isEqual(left, right);
 
             case MINUS:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left - (double) right;
+            case MINUS_EQUAL:
+            case MINUS_MINUS:
+                checkNumberOperands(operator, left, right);
+                return NumberOps.subtract(left, right);
 
             case PLUS:
-                if (left instanceof Double && right instanceof Double) {
-                    return (double)left + (double) right;
+            case PLUS_EQUAL:
+            case PLUS_PLUS:
+                if (NumberOps.isNumber(left) && NumberOps.isNumber(right)) {
+                    return NumberOps.add(left, right);
                 }
 
                 if (left instanceof String && right instanceof String) {
                     return (String)left + (String) right;
                 }
 
-                throw new RuntimeError(expr.operator,
+                throw new RuntimeError(operator,
                         "Operands must be two number or two strings.");
 
             case SLASH:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left / (double) right;
+                checkNumberOperands(operator, left, right);
+                return NumberOps.divide(left, right);
 
             case STAR:
-                checkNumberOperands(expr.operator, left, right);
-                return (double)left * (double) right;
+                checkNumberOperands(operator, left, right);
+                return NumberOps.multiply(left, right);
         }
 
         // unreachable
@@ -103,6 +136,14 @@ class Interpreter implements Expr.Visitor<Object>,
     public Object visitCallExpr(Expr.Call expr) {
         Object callee = evaluate(expr.callee);
 
+        // 인자가 적은 내장 함수는 인자 리스트를 만들지 않고 바로 호출한다.
+        if (callee instanceof NativeMethod) {
+            NativeMethod function = (NativeMethod) callee;
+            if (function.arity() == expr.arguments.size() &&
+                    function.arity() <= NativeMethod.MAX_DIRECT_ARITY)
+                return callNative(expr, function);
+        }
+
         List<Object> arguments = new ArrayList<>();
         for (Expr argument : expr.arguments) {
             arguments.add(evaluate(argument));
@@ -126,7 +167,113 @@ class Interpreter implements Expr.Visitor<Object>,
                     arguments.size() + ".");
         }
 
-        return function.call(this, arguments);
+        try {
+            return function.call(this, arguments);
+        } catch (NativeError error) { // 네이티브 함수의 에러에 호출 위치를 붙인다.
+            throw new RuntimeError(expr.paren, error.getMessage());
+        }
+    }
+
+    private Object callNative(Expr.Call expr, NativeMethod function) {
+        List<Expr> arguments = expr.arguments;
+        try {
+            switch (arguments.size()) {
+                case 0:
+                    return function.call0(this);
+                case 1:
+                    return function.call1(this, evaluate(arguments.get(0)));
+                case 2: {
+                    Object a = evaluate(arguments.get(0));
+                    return function.call2(this, a, evaluate(arguments.get(1)));
+                }
+                default: {
+                    Object a = evaluate(arguments.get(0));
+                    Object b = evaluate(arguments.get(1));
+                    return function.call3(this, a, b, evaluate(arguments.get(2)));
+                }
+            }
+        } catch (NativeError error) {
+            throw new RuntimeError(expr.paren, error.getMessage());
+        }
+    }
+
+    @Override
+    public Object visitCompareConstExpr(Expr.CompareConst expr) {
+        Object left = lookUpVariable(expr.name, expr);
+        return binaryOp(expr.operator, left, expr.constant);
+    }
+
+    @Override
+    public Object visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+        // 변수가 있는 환경을 한 번만 찾아서 읽고 쓴다.
+        Integer distance = locals.get(expr);
+        Environment target = distance != null ?
+                environment.ancestor(distance) : globals;
+
+        Object current = target.getHere(expr.name);
+        Object value = binaryOp(expr.operator, current, evaluate(expr.value));
+        target.assignHere(expr.name, value);
+        return expr.postfix ? current : value;
+    }
+
+    @Override
+    public Object visitCompoundSetExpr(Expr.CompoundSet expr) {
+        Object object = evaluate(expr.object);
+
+        if (!(object instanceof SInterpInstance)) {
+            throw new RuntimeError(expr.name,
+                    "Only instances have fields.");
+        }
+
+        SInterpInstance instance = (SInterpInstance) object;
+        Object current = instance.get(expr.name);
+        Object value = binaryOp(expr.operator, current, evaluate(expr.value));
+        instance.set(expr.name, value);
+        return expr.postfix ? current : value;
+    }
+
+    @Override
+    public Object visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+        // 객체와 인덱스는 한 번만 평가한다.
+        Object object = evaluate(expr.object);
+        Object index = evaluate(expr.index);
+
+        if (object instanceof SInterpList) {
+            SInterpList list = (SInterpList) object;
+            int at = listIndex(expr.bracket, list, index);
+            Object current = list.get(at);
+            Object value = binaryOp(expr.operator, current, evaluate(expr.value));
+            list.set(at, value);
+            return expr.postfix ? current : value;
+        }
+
+        if (object instanceof SInterpMap) {
+            SInterpMap map = (SInterpMap) object;
+            Object key = mapKey(expr.bracket, index);
+            Object current = map.get(key);
+            Object value = binaryOp(expr.operator, current, evaluate(expr.value));
+            map.put(key, value);
+            return expr.postfix ? current : value;
+        }
+
+        throw new RuntimeError(expr.bracket, "Only lists and maps can be indexed.");
+    }
+
+    @Override
+    public Object visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+        Object object = evaluate(expr.object);
+
+        if (!(object instanceof SInterpInstance)) {
+            throw new RuntimeError(expr.name,
+                    "Only instances have fields.");
+        }
+
+        // 객체는 한 번만 평가하고, 필드를 읽은 뒤 값을 평가하는 원래 순서를 유지한다.
+        SInterpInstance instance = (SInterpInstance) object;
+        Object field = instance.get(expr.name);
+        Object value = binaryOp(expr.operator, field, evaluate(expr.value));
+        instance.set(expr.name, value);
+        return value;
     }
 
     @Override
@@ -145,6 +292,99 @@ class Interpreter implements Expr.Visitor<Object>,
         return evaluate(expr.expression);
     }
 
+    @Override
+    public Object visitHoistedExpr(Expr.Hoisted expr) {
+        Object[] frame = loopFrames[expr.loop];
+        Object value = frame[expr.slot];
+        if (value == UNSET) { // 이번 루프 실행에서 처음 평가될 때만 계산한다.
+            value = evaluate(expr.expression);
+            frame[expr.slot] = value;
+        }
+        return value;
+    }
+
+    @Override
+    public Object visitIncrementExpr(Expr.Increment expr) {
+        // 변수가 있는 환경을 한 번만 찾아서 읽고 쓴다.
+        Integer distance = locals.get(expr);
+        Environment target = distance != null ?
+                environment.ancestor(distance) : globals;
+
+        Object value = binaryOp(expr.operator, target.getHere(expr.name), expr.delta);
+        target.assignHere(expr.name, value);
+        return value;
+    }
+
+    @Override
+    public Object visitIndexExpr(Expr.Index expr) {
+        Object object = evaluate(expr.object);
+        Object index = evaluate(expr.index);
+
+        if (object instanceof SInterpList) {
+            SInterpList list = (SInterpList) object;
+            return list.get(listIndex(expr.bracket, list, index));
+        }
+
+        // 맵에 없는 키는 nil
+        if (object instanceof SInterpMap)
+            return ((SInterpMap) object).get(mapKey(expr.bracket, index));
+
+        throw new RuntimeError(expr.bracket, "Only lists and maps can be indexed.");
+    }
+
+    @Override
+    public Object visitIndexSetExpr(Expr.IndexSet expr) {
+        Object object = evaluate(expr.object);
+        Object index = evaluate(expr.index);
+        Object value = evaluate(expr.value);
+
+        if (object instanceof SInterpList) {
+            SInterpList list = (SInterpList) object;
+            list.set(listIndex(expr.bracket, list, index), value);
+            return value;
+        }
+
+        if (object instanceof SInterpMap) {
+            ((SInterpMap) object).put(mapKey(expr.bracket, index), value);
+            return value;
+        }
+
+        throw new RuntimeError(expr.bracket, "Only lists and maps can be indexed.");
+    }
+
+    static Object mapKey(Token bracket, Object index) {
+        Object key = SInterpMap.normalizeKey(index);
+        if (key == null)
+            throw new RuntimeError(bracket,
+                    "Map key must be a string, number, boolean or instance.");
+        return key;
+    }
+
+    // 리스트 인덱스는 정수여야 한다. 정수 값을 가진 실수도 허용한다.
+    static int listIndex(Token bracket, SInterpList list, Object index) {
+        long i;
+        if (index instanceof Long) {
+            i = (long) index;
+        } else if (index instanceof Double && (double) index == Math.rint((double) index)) {
+            i = (long)(double) index;
+        } else {
+            throw new RuntimeError(bracket, "List index must be an integer.");
+        }
+
+        if (i < 0 || i >= list.size())
+            throw new RuntimeError(bracket, "List index out of range.");
+        return (int) i;
+    }
+
+    @Override
+    public Object visitListLiteralExpr(Expr.ListLiteral expr) {
+        SInterpList list = new SInterpList(expr.elements.size());
+        for (Expr element : expr.elements) {
+            list.add(evaluate(element));
+        }
+        return list;
+    }
+
     @Override
     public Object visitLiteralExpr(Expr.Literal expr) {
         return expr.value;
@@ -193,7 +433,7 @@ class Interpreter implements Expr.Visitor<Object>,
                 return !isTruthy(right);
             case MINUS:
                 checkNumberOperand(expr.operator, right);
-                return -(double)right;
+                return NumberOps.negate(right);
         }
 
         // unreachable
@@ -209,28 +449,28 @@ class Interpreter implements Expr.Visitor<Object>,
     private Object lookUpVariable(Token name, Expr expr) {
         Integer distance = locals.get(expr);
         if (distance != null) {
-            return environment.getAt(distance, name.lexeme);
+            return environment.getAt(distance, name.symbol);
         } else {
             return globals.get(name);
         }
     }
 
-    private void checkNumberOperand(Token operator, Object operand) {
-        if (operand instanceof Double)
+    static void checkNumberOperand(Token operator, Object operand) {
+        if (NumberOps.isNumber(operand))
             return;
         throw new RuntimeError(operator, "Operand must be a number");
     }
 
-    private void checkNumberOperands(Token operator,
+    static void checkNumberOperands(Token operator,
                                      Object left, Object right) {
-        if (left instanceof Double && right instanceof Double)
+        if (NumberOps.isNumber(left) && NumberOps.isNumber(right))
             return;
 
         throw new RuntimeError(operator, "Operands must be numbers");
     }
 
     // 명시적인 null, bool 빼고는 모두 ! 연산에서 true 로 간주된다.
-    private boolean isTruthy(Object object) {
+    static boolean isTruthy(Object object) {
         if (object == null)
             return false;
         if (object instanceof Boolean)
@@ -239,20 +479,25 @@ class Interpreter implements Expr.Visitor<Object>,
     }
 
     // 동등성 체크
-    private boolean isEqual(Object a, Object b) {
+    static boolean isEqual(Object a, Object b) {
         if (a == null && b == null)
             return true;
         if (a == null)
             return false;
+        if (NumberOps.isNumber(a) && NumberOps.isNumber(b))
+            return NumberOps.equal(a, b);
 
         return a.equals(b);
     }
 
     // object 의 string 출력 수정
-    private String stringify(Object object) {
+    static String stringify(Object object) {
         if (object == null)
             return "nil";
 
+        if (object instanceof Long)
+            return object.toString();
+
         if (object instanceof Double) {
             String text = object.toString();
             if (text.endsWith(".0")) {
@@ -284,6 +529,14 @@ class Interpreter implements Expr.Visitor<Object>,
         locals.put(expr, depth);
     }
 
+    boolean isLocal(Expr expr) {
+        return locals.containsKey(expr);
+    }
+
+    Integer depthOf(Expr expr) {
+        return locals.get(expr);
+    }
+
     void executeBlock(List<Stmt> statements, Environment environment) {
         Environment previous = this.environment;
         try {
@@ -305,12 +558,12 @@ class Interpreter implements Expr.Visitor<Object>,
 
     @Override
     public Void visitClassStmt(Stmt.Class stmt) {
-        environment.define(stmt.name.lexeme, null);
+        environment.define(stmt.name.symbol, null);
 
-        Map<String, SInterpFunction> methods = new HashMap<>();
+        Map<Symbol, SInterpFunction> methods = new HashMap<>();
         for (Stmt.Function method : stmt.methods) {
             SInterpFunction function = new SInterpFunction(method, environment);
-            methods.put(method.name.lexeme, function);
+            methods.put(method.name.symbol, function);
         }
 
         SInterpClass klass = new SInterpClass(stmt.name.lexeme, methods);
@@ -324,10 +577,73 @@ class Interpreter implements Expr.Visitor<Object>,
         return null;
     }
 
+    @Override
+    public Void visitForInStmt(Stmt.ForIn stmt) {
+        Object iterable = evaluate(stmt.iterable);
+
+        if (iterable instanceof SInterpList) {
+            // 반복 중에 늘어나거나 줄어든 리스트도 현재 크기까지 돈다.
+            SInterpList list = (SInterpList) iterable;
+            for (int i = 0; i < list.size(); i++) {
+                executeForInBody(stmt, list.get(i));
+            }
+        } else if (iterable instanceof SInterpMap) {
+            // 반복을 시작할 때의 키 목록을 돈다.
+            SInterpList keys = ((SInterpMap) iterable).keys();
+            for (int i = 0; i < keys.size(); i++) {
+                executeForInBody(stmt, keys.get(i));
+            }
+        } else if (iterable instanceof SInterpGenerator) {
+            SInterpGenerator generator = (SInterpGenerator) iterable;
+            for (Object value = generator.next(stmt.name); value != SInterpGenerator.DONE;
+                    value = generator.next(stmt.name)) {
+                executeForInBody(stmt, value);
+            }
+        } else {
+            throw new RuntimeError(stmt.name,
+                    "Can only iterate over lists, maps and generators.");
+        }
+        return null;
+    }
+
+    // 반복마다 새 환경을 만들어 클로저가 각 반복의 변수를 따로 캡처하도록 한다.
+    private void executeForInBody(Stmt.ForIn stmt, Object value) {
+        Environment environment = new Environment(this.environment);
+        environment.define(stmt.name.symbol, value);
+        Environment previous = this.environment;
+        try {
+            this.environment = environment;
+            execute(stmt.body);
+        } finally {
+            this.environment = previous;
+        }
+    }
+
     @Override
     public Void visitFunctionStmt(Stmt.Function stmt) {
         SInterpFunction function = new SInterpFunction(stmt, environment); // closure 구현을 위해 environment 저장
-        environment.define(stmt.name.lexeme, function);
+        environment.define(stmt.name.symbol, function);
+        return null;
+    }
+
+    @Override
+    public Void visitHoistedWhileStmt(Stmt.HoistedWhile stmt) {
+        if (stmt.loop >= loopFrames.length) {
+            loopFrames = Arrays.copyOf(loopFrames,
+                    Math.max(stmt.loop + 1, loopFrames.length * 2));
+        }
+
+        Object[] previous = loopFrames[stmt.loop];
+        Object[] frame = new Object[stmt.slots];
+        Arrays.fill(frame, UNSET);
+        loopFrames[stmt.loop] = frame;
+        try {
+            while (isTruthy(evaluate(stmt.condition))) {
+                execute(stmt.body);
+            }
+        } finally {
+            loopFrames[stmt.loop] = previous;
+        }
         return null;
     }
 
@@ -363,7 +679,7 @@ class Interpreter implements Expr.Visitor<Object>,
             value = evaluate(stmt.initializer);
         }
 
-        environment.define(stmt.name.lexeme, value);
+        environment.define(stmt.name.symbol, value);
         return null;
     }
 
@@ -375,6 +691,18 @@ class Interpreter implements Expr.Visitor<Object>,
         return null;
     }
 
+    @Override
+    public Void visitYieldStmt(Stmt.Yield stmt) {
+        if (generator == null)
+            throw new RuntimeError(stmt.keyword, "Can't yield outside a generator.");
+
+        Object value = null;
+        if (stmt.value != null)
+            value = evaluate(stmt.value);
+        generator.yield(value);
+        return null;
+    }
+
     @Override
     public Object visitAssignExpr(Expr.Assign expr) {
         Object value = evaluate(expr.value);
@@ -0,0 +1,81 @@
+package org.sealang.sinterp;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Set;
+
+/*
+* 파싱을 첫 호출까지 미룬 최상위 함수(메서드)의 본문.
+* 파서는 괄호 짝만 맞춰 본문을 건너뛰고 소스 구간만 기억한다. 처음 호출될 때 그 구간을
+* 다시 스캔해서 파싱하고, 리졸브와 최적화 패스를 거친 본문으로 바꾼다. 호출되지 않는 함수는 파싱하지 않으므로
+* 시작 시간이 실제로 쓰는 코드의 양에 비례한다.
+*
+* 본문의 구문 에러는 처음 호출할 때 보고되고, 그 호출은 런타임 에러가 된다.
+* -Dsinterp.strict=true 이면 모든 본문을 바로 파싱해서 실행 전에 에러를 보고한다.
+*
+* 리졸브, 최적화 패스는 로드되지 않은 본문을 건너뛴다. 로드되기 전에 원소를 읽으면 예외를 던진다.
+* */
+final class LazyBody extends AbstractList<Stmt> {
+    // 로드한 뒤에는 소스를 놓아준다.
+    private char[] source;
+    // 본문 '{' 부터 '}' 까지의 구간 [from, to) 와 from 위치의 라인
+    final int from;
+    final int to;
+    final int line;
+    final boolean method;
+    // 본문에서 대입되는 변수 이름. 파서가 괄호 짝을 찾으면서 모은다. 인라이너가 재정의되는
+    // 함수를 찾을 때 쓴다.
+    final Set<String> assignedNames;
+    private volatile List<Stmt> loaded;
+
+    LazyBody(char[] source, int from, int to, int line, boolean method,
+             Set<String> assignedNames) {
+        this.source = source;
+        this.from = from;
+        this.to = to;
+        this.line = line;
+        this.method = method;
+        this.assignedNames = Set.copyOf(assignedNames);
+    }
+
+    // 본문을 로드해서 돌려준다. 병렬 내장 함수의 작업 스레드에서도 호출될 수 있으므로
+    // 로드는 한 번에 하나씩 한다. (SInterp 의 에러 상태를 공유한다.)
+    List<Stmt> load(Interpreter interpreter, Stmt.Function function) {
+        List<Stmt> body = loaded;
+        if (body != null)
+            return body;
+
+        synchronized (LazyBody.class) {
+            if (loaded == null && source != null) {
+                loaded = SInterp.prepareBody(interpreter, function, this);
+                source = null;
+            }
+            body = loaded;
+        }
+        if (body == null)
+            throw new RuntimeError(function.name,
+                    "Can't call '" + function.name.lexeme + "' because its body has errors.");
+        return body;
+    }
+
+    List<Stmt> parse() {
+        return Parser.parseBody(new Scanner(source, from, to, line).scanPacked());
+    }
+
+    @Override
+    public Stmt get(int index) {
+        return body().get(index);
+    }
+
+    @Override
+    public int size() {
+        return body().size();
+    }
+
+    private List<Stmt> body() {
+        List<Stmt> body = loaded;
+        if (body == null)
+            throw new IllegalStateException("Function body is not loaded yet.");
+        return body;
+    }
+}
@@ -0,0 +1,30 @@
+package org.sealang.sinterp;
+
+// 리스트 내장 함수 : size, push, pop
+// size 는 맵과 버퍼(바이트 수)에도 쓸 수 있다.
+final class ListNatives {
+    private ListNatives() {}
+
+    @Native
+    static long size(Object value) {
+        if (value instanceof SInterpMap)
+            return ((SInterpMap)value).size();
+        if (value instanceof SInterpBuffer)
+            return ((SInterpBuffer)value).size();
+        if (value instanceof SInterpList)
+            return ((SInterpList)value).size();
+        throw new NativeError("Argument must be a list.");
+    }
+
+    @Native
+    static void push(SInterpList list, Object value) {
+        list.add(value);
+    }
+
+    @Native
+    static Object pop(SInterpList list) {
+        if (list.size() == 0)
+            throw new NativeError("Can't pop from an empty list.");
+        return list.removeLast();
+    }
+}
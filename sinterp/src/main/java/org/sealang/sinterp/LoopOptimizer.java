@@ -0,0 +1,356 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+* LoopOptimizer
+* 역할 : 리졸브가 끝난 뒤 while 루프(디슈가링된 for 포함) 안에서 반복마다 값이 바뀌지 않는
+* 식을 찾아 Expr.Hoisted 로 감싸고, 루프를 Stmt.HoistedWhile 로 바꾼다.
+*
+* 끌어올린 식은 루프 실행마다 처음 평가되는 위치에서 한 번만 계산되고 이후 반복에서는
+* 저장된 값을 재사용한다. 루프 앞으로 미리 계산하지 않으므로 한 번도 돌지 않는 루프나
+* 에러가 나는 식의 동작이 원래와 같다.
+*
+* 불변 조건 (루프 L 기준)
+*  - 리터럴, this
+*  - L 안에서 대입/선언되지 않는 변수. L 안에 호출이 있으면 클로저에 캡처되지 않은 지역 변수만.
+*  - L 안에 호출이 없고 같은 이름의 필드에 대입하지 않을 때, 불변 객체의 프로퍼티 읽기
+*  - L 안에 호출과 원소 대입이 없을 때, 불변 리스트와 인덱스로 원소 읽기
+*  - 불변 피연산자로 이루어진 단항/이항/논리/괄호 식
+* */
+class LoopOptimizer extends AstRewriter {
+    private static final AtomicInteger nextLoopId = new AtomicInteger();
+
+    private final Resolver resolver;
+
+    // 현재 처리 중인 루프들. 바깥 루프가 앞에 온다.
+    private List<LoopInfo> loops = new ArrayList<>();
+    // 끌어올린 식의 내부를 처리할 때는 그보다 바깥 루프로만 다시 끌어올릴 수 있다.
+    private int limit = Integer.MAX_VALUE;
+
+    LoopOptimizer(Interpreter interpreter, Resolver resolver) {
+        super(interpreter);
+        this.resolver = resolver;
+    }
+
+    List<Stmt> optimize(List<Stmt> statements) {
+        return rewrite(statements);
+    }
+
+    // 지금까지 나눠 준 루프 번호의 수. AstCache 가 저장한다.
+    static int loopIdsUsed() {
+        return nextLoopId.get();
+    }
+
+    // 캐시에서 읽은 AST 가 쓰는 루프 번호를 이후 최적화가 다시 쓰지 않게 한다.
+    static void reserveLoopIds(int count) {
+        nextLoopId.accumulateAndGet(count, Math::max);
+    }
+
+    private static class LoopInfo {
+        int id = -1;
+        int slots = 0;
+        boolean hasCall = false;
+        boolean hasIndexSet = false;
+        final Set<String> assigned = new HashSet<>();
+        final Set<String> declared = new HashSet<>();
+        final Set<String> setFields = new HashSet<>();
+    }
+
+    @Override
+    Expr rewrite(Expr expr) {
+        if (expr == null || loops.isEmpty())
+            return super.rewrite(expr);
+
+        int level = invariantLevel(expr);
+        if (level < 0 || isTrivial(expr))
+            return super.rewrite(expr);
+
+        // 내부의 더 바깥 루프 불변식을 먼저 끌어올린다.
+        int enclosingLimit = limit;
+        limit = level;
+        Expr inner = super.rewrite(expr);
+        limit = enclosingLimit;
+
+        LoopInfo loop = loops.get(level);
+        if (loop.id < 0)
+            loop.id = nextLoopId.getAndIncrement();
+        return new Expr.Hoisted(inner, loop.id, loop.slots++);
+    }
+
+    @Override
+    public Stmt visitWhileStmt(Stmt.While stmt) {
+        LoopInfo loop = analyze(stmt);
+        loops.add(loop);
+        Expr condition = rewrite(stmt.condition);
+        Stmt body = rewrite(stmt.body);
+        loops.remove(loops.size() - 1);
+
+        if (loop.slots > 0)
+            return new Stmt.HoistedWhile(condition, body, loop.id, loop.slots);
+        if (condition == stmt.condition && body == stmt.body)
+            return stmt;
+        return new Stmt.While(condition, body);
+    }
+
+    // 함수 본문은 루프 밖에서 호출될 수 있으므로 바깥 루프로 끌어올리지 않는다.
+    @Override
+    Stmt.Function rewriteFunction(Stmt.Function function) {
+        List<LoopInfo> enclosingLoops = loops;
+        loops = new ArrayList<>();
+        Stmt.Function result = super.rewriteFunction(function);
+        loops = enclosingLoops;
+        return result;
+    }
+
+    // 식이 불변인 가장 바깥 루프의 인덱스. 없으면 -1
+    private int invariantLevel(Expr expr) {
+        int end = Math.min(limit, loops.size());
+        for (int i = 0; i < end; i++) {
+            if (expr.accept(new InvarianceChecker(loops.get(i))))
+                return i;
+        }
+        return -1;
+    }
+
+    // 끌어올려도 이득이 없는 식
+    private static boolean isTrivial(Expr expr) {
+        if (expr instanceof Expr.Grouping)
+            return isTrivial(((Expr.Grouping) expr).expression);
+        return expr instanceof Expr.Literal ||
+                expr instanceof Expr.Variable ||
+                expr instanceof Expr.This ||
+                expr instanceof Expr.Hoisted;
+    }
+
+    private static LoopInfo analyze(Stmt.While stmt) {
+        LoopInfo loop = new LoopInfo();
+        AstRewriter collector = new AstRewriter() {
+            @Override
+            public Expr visitAssignExpr(Expr.Assign expr) {
+                loop.assigned.add(expr.name.lexeme);
+                return super.visitAssignExpr(expr);
+            }
+
+            @Override
+            public Expr visitCallExpr(Expr.Call expr) {
+                loop.hasCall = true;
+                return super.visitCallExpr(expr);
+            }
+
+            @Override
+            public Expr visitSetExpr(Expr.Set expr) {
+                loop.setFields.add(expr.name.lexeme);
+                return super.visitSetExpr(expr);
+            }
+
+            @Override
+            public Expr visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+                loop.assigned.add(expr.name.lexeme);
+                return super.visitCompoundAssignExpr(expr);
+            }
+
+            @Override
+            public Expr visitCompoundSetExpr(Expr.CompoundSet expr) {
+                loop.setFields.add(expr.name.lexeme);
+                return super.visitCompoundSetExpr(expr);
+            }
+
+            @Override
+            public Expr visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+                loop.setFields.add(expr.name.lexeme);
+                return super.visitFieldAddAssignExpr(expr);
+            }
+
+            @Override
+            public Expr visitIndexSetExpr(Expr.IndexSet expr) {
+                loop.hasIndexSet = true;
+                return super.visitIndexSetExpr(expr);
+            }
+
+            @Override
+            public Expr visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+                loop.hasIndexSet = true;
+                return super.visitCompoundIndexSetExpr(expr);
+            }
+
+            @Override
+            public Expr visitIncrementExpr(Expr.Increment expr) {
+                loop.assigned.add(expr.name.lexeme);
+                return super.visitIncrementExpr(expr);
+            }
+
+            @Override
+            public Stmt visitClassStmt(Stmt.Class stmt) {
+                loop.declared.add(stmt.name.lexeme);
+                return super.visitClassStmt(stmt);
+            }
+
+            @Override
+            Stmt.Function rewriteFunction(Stmt.Function function) {
+                loop.declared.add(function.name.lexeme);
+                for (Token param : function.params) {
+                    loop.declared.add(param.lexeme);
+                }
+                return super.rewriteFunction(function);
+            }
+
+            @Override
+            public Stmt visitVarStmt(Stmt.Var stmt) {
+                loop.declared.add(stmt.name.lexeme);
+                return super.visitVarStmt(stmt);
+            }
+
+            @Override
+            public Stmt visitForInStmt(Stmt.ForIn stmt) {
+                loop.declared.add(stmt.name.lexeme);
+                return super.visitForInStmt(stmt);
+            }
+
+            // yield 로 멈춘 동안 다른 코드가 실행되므로 호출과 같이 본다.
+            @Override
+            public Stmt visitYieldStmt(Stmt.Yield stmt) {
+                loop.hasCall = true;
+                return super.visitYieldStmt(stmt);
+            }
+        };
+        collector.rewrite(stmt.condition);
+        collector.rewrite(stmt.body);
+        return loop;
+    }
+
+    private class InvarianceChecker implements Expr.Visitor<Boolean> {
+        private final LoopInfo loop;
+
+        InvarianceChecker(LoopInfo loop) {
+            this.loop = loop;
+        }
+
+        private boolean check(Expr expr) {
+            return expr.accept(this);
+        }
+
+        @Override
+        public Boolean visitAssignExpr(Expr.Assign expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitBinaryExpr(Expr.Binary expr) {
+            return check(expr.left) && check(expr.right);
+        }
+
+        @Override
+        public Boolean visitCallExpr(Expr.Call expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitCompareConstExpr(Expr.CompareConst expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitCompoundSetExpr(Expr.CompoundSet expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitGetExpr(Expr.Get expr) {
+            // 호출은 임의의 필드를 바꿀 수 있다.
+            return !loop.hasCall &&
+                    !loop.setFields.contains(expr.name.lexeme) &&
+                    check(expr.object);
+        }
+
+        @Override
+        public Boolean visitGroupingExpr(Expr.Grouping expr) {
+            return check(expr.expression);
+        }
+
+        @Override
+        public Boolean visitHoistedExpr(Expr.Hoisted expr) {
+            // 다른 루프의 임시값은 그 루프가 실행 중일 때만 유효하다.
+            return false;
+        }
+
+        @Override
+        public Boolean visitIncrementExpr(Expr.Increment expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitIndexExpr(Expr.Index expr) {
+            // 호출(push, pop 포함)과 원소 대입은 리스트 내용을 바꿀 수 있다.
+            return !loop.hasCall && !loop.hasIndexSet &&
+                    check(expr.object) && check(expr.index);
+        }
+
+        @Override
+        public Boolean visitIndexSetExpr(Expr.IndexSet expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitListLiteralExpr(Expr.ListLiteral expr) {
+            // 평가할 때마다 새 리스트를 만든다.
+            return false;
+        }
+
+        @Override
+        public Boolean visitLiteralExpr(Expr.Literal expr) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitLogicalExpr(Expr.Logical expr) {
+            return check(expr.left) && check(expr.right);
+        }
+
+        @Override
+        public Boolean visitSetExpr(Expr.Set expr) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitThisExpr(Expr.This expr) {
+            return true;
+        }
+
+        @Override
+        public Boolean visitUnaryExpr(Expr.Unary expr) {
+            return check(expr.right);
+        }
+
+        @Override
+        public Boolean visitVariableExpr(Expr.Variable expr) {
+            String name = expr.name.lexeme;
+            if (loop.assigned.contains(name) || loop.declared.contains(name))
+                return false;
+            if (!loop.hasCall)
+                return true;
+
+            // 호출은 전역 변수와 캡처된 지역 변수를 바꿀 수 있다.
+            return interpreter.isLocal(expr) && !resolver.isCaptured(name);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package org.sealang.sinterp;
+
+// 맵 내장 함수 : map, keys, remove (size 는 ListNatives 에 있다.)
+final class MapNatives {
+    private MapNatives() {}
+
+    @Native
+    static SInterpMap map() {
+        return new SInterpMap();
+    }
+
+    @Native
+    static SInterpList keys(SInterpMap map) {
+        return map.keys();
+    }
+
+    // 지운 값을 돌려준다. 없는 키면 nil
+    @Native
+    static Object remove(SInterpMap map, Object key) {
+        return map.remove(key(key));
+    }
+
+    private static Object key(Object value) {
+        Object key = SInterpMap.normalizeKey(value);
+        if (key == null)
+            throw new NativeError("Map key must be a string, number, boolean or instance.");
+        return key;
+    }
+}
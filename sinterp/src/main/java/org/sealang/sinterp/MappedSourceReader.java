@@ -0,0 +1,79 @@
+package org.sealang.sinterp;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+* 소스 파일을 메모리 매핑해서 문자로 디코딩하는 Reader.
+* 파일 전체를 byte[] 나 String 으로 복사하지 않고, WINDOW_SIZE 단위로 매핑한 구간을
+* Scanner 의 버퍼로 바로 디코딩한다.
+*
+* 구간 경계에 걸친 멀티바이트 문자는 디코딩하지 못한 바이트부터 다음 구간을 매핑해 이어 읽는다.
+* 잘못된 바이트는 new String(bytes, charset) 과 같이 대체 문자로 바꾼다.
+* */
+final class MappedSourceReader extends Reader {
+    private static final long WINDOW_SIZE = 64L * 1024 * 1024;
+
+    private final FileChannel channel;
+    private final long size;
+    private final CharsetDecoder decoder;
+    private ByteBuffer window = ByteBuffer.allocate(0);
+    private long position = 0; // 다음에 매핑할 파일 위치
+    private boolean finished = false;
+
+    MappedSourceReader(Path path, Charset charset) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.size = channel.size();
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+
+        CharBuffer out = CharBuffer.wrap(cbuf, off, len);
+        while (out.hasRemaining() && !finished) {
+            boolean last = position >= size;
+            CoderResult result = decoder.decode(window, out, last);
+            if (result.isOverflow())
+                break;
+
+            if (!last) {
+                map();
+            } else if (decoder.flush(out).isUnderflow()) {
+                finished = true;
+            }
+        }
+
+        int read = out.position() - off;
+        return read == 0 && finished ? -1 : read;
+    }
+
+    // 디코딩하지 못하고 남은 바이트부터 다음 구간을 매핑한다.
+    private void map() throws IOException {
+        long from = position - window.remaining();
+        long length = Math.min(WINDOW_SIZE, size - from);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, from, length);
+        window = mapped;
+        position = from + length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        window = ByteBuffer.allocate(0);
+        channel.close();
+    }
+}
@@ -0,0 +1,37 @@
+package org.sealang.sinterp;
+
+/*
+* 메모이제이션 내장 함수
+*  memo(fn)                  : 결과를 최대 DEFAULT_CAPACITY 개 저장하는 함수를 돌려준다.
+*  memoBounded(fn, capacity) : 저장 개수를 지정한다.
+*  memoStats(m)              : hits, misses, evictions, size, capacity 가 담긴 맵
+*  memoClear(m)              : 저장된 결과와 카운터를 지운다.
+* 재귀 함수는 fib = memo(fib); 처럼 이름에 다시 대입해야 재귀 호출도 캐시를 거친다.
+* */
+final class MemoNatives {
+    private MemoNatives() {}
+
+    static final int DEFAULT_CAPACITY = 10_000;
+
+    @Native
+    static SInterpMemo memo(SInterpCallable function) {
+        return new SInterpMemo(function, DEFAULT_CAPACITY);
+    }
+
+    @Native
+    static SInterpMemo memoBounded(SInterpCallable function, long capacity) {
+        if (capacity < 1 || capacity > Integer.MAX_VALUE)
+            throw new NativeError("Capacity must be a positive integer.");
+        return new SInterpMemo(function, (int) capacity);
+    }
+
+    @Native
+    static SInterpMap memoStats(SInterpMemo memo) {
+        return memo.stats();
+    }
+
+    @Native
+    static void memoClear(SInterpMemo memo) {
+        memo.clear();
+    }
+}
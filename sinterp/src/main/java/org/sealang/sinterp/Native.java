@@ -0,0 +1,16 @@
+package org.sealang.sinterp;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+* 스크립트의 전역 내장 함수로 등록할 static 메서드에 붙인다. NativeRegistry 가 바인딩한다.
+* 이름을 주지 않으면 메서드 이름을 쓴다.
+* */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+@interface Native {
+    String value() default "";
+}
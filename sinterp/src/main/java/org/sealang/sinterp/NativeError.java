@@ -0,0 +1,11 @@
+package org.sealang.sinterp;
+
+/*
+ 네이티브 함수는 호출 지점의 토큰을 모르므로 이 예외로 에러를 알린다.
+ Interpreter 가 호출 지점의 '(' 토큰을 붙여 RuntimeError 로 바꿔 던진다.
+ */
+class NativeError extends RuntimeException {
+    NativeError(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,95 @@
+package org.sealang.sinterp;
+
+import java.lang.invoke.MethodHandle;
+import java.util.List;
+
+/*
+* NativeRegistry 가 바인딩한 내장 함수.
+* handle 의 타입은 (Interpreter, Object * arity)Object 로 맞춰져 있다.
+* 인자가 3 개 이하이면 Interpreter 가 call0 ~ call3 으로 인자 리스트 없이 바로 호출한다.
+* */
+final class NativeMethod implements SInterpCallable {
+    static final int MAX_DIRECT_ARITY = 3;
+
+    private final int arity;
+    private final MethodHandle handle;
+    // 일반 호출 경로용. (Interpreter, Object[])Object
+    private final MethodHandle spreader;
+
+    NativeMethod(int arity, MethodHandle handle) {
+        this.arity = arity;
+        this.handle = handle;
+        this.spreader = handle.asSpreader(Object[].class, arity);
+    }
+
+    @Override
+    public int arity() {
+        return arity;
+    }
+
+    Object call0(Interpreter interpreter) {
+        try {
+            return (Object) handle.invokeExact(interpreter);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    Object call1(Interpreter interpreter, Object a) {
+        try {
+            return (Object) handle.invokeExact(interpreter, a);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    Object call2(Interpreter interpreter, Object a, Object b) {
+        try {
+            return (Object) handle.invokeExact(interpreter, a, b);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    Object call3(Interpreter interpreter, Object a, Object b, Object c) {
+        try {
+            return (Object) handle.invokeExact(interpreter, a, b, c);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        switch (arity) {
+            case 0:
+                return call0(interpreter);
+            case 1:
+                return call1(interpreter, arguments.get(0));
+            case 2:
+                return call2(interpreter, arguments.get(0), arguments.get(1));
+            case 3:
+                return call3(interpreter, arguments.get(0), arguments.get(1), arguments.get(2));
+            default:
+                try {
+                    return (Object) spreader.invokeExact(interpreter, arguments.toArray());
+                } catch (Throwable t) {
+                    throw rethrow(t);
+                }
+        }
+    }
+
+    // 내장 함수는 체크 예외를 던지지 않는다. (NativeRegistry 가 등록할 때 검사한다.)
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException)
+            return (RuntimeException) t;
+        if (t instanceof Error)
+            throw (Error) t;
+        return new IllegalStateException(t);
+    }
+
+    @Override
+    public String toString() {
+        return "<native fn>";
+    }
+}
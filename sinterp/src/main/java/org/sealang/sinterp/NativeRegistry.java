@@ -0,0 +1,173 @@
+package org.sealang.sinterp;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+* NativeRegistry
+* 역할 : @Native 가 붙은 static 메서드를 찾아 MethodHandle 로 감싸 전역 환경에 등록한다.
+* 리플렉션은 등록할 때만 쓰고, 호출은 변환 핸들이 붙은 MethodHandle 로 한다.
+*
+* 파라미터 변환 (스크립트 값 → 자바)
+*  - 첫 파라미터가 Interpreter 이면 호출한 인터프리터를 넘긴다. (인자 수에 들어가지 않는다.)
+*  - Object              : 그대로
+*  - long, int           : 정수 (정수 값을 가진 실수도 허용)
+*  - double              : 숫자
+*  - boolean             : 참 거짓 판정 (nil, false 만 거짓)
+*  - String, 내장 타입들    : 타입 검사 후 그대로. 다르면 "Argument must be a list." 같은 에러
+* 반환값 변환 (자바 → 스크립트 값)
+*  - int, long → Long, double → Double, boolean → Boolean, void → nil, 참조 타입은 그대로
+* */
+final class NativeRegistry {
+    private NativeRegistry() {}
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    // 파라미터 타입 → 에러 메시지에 쓰는 이름
+    private static final Map<Class<?>, String> TYPE_NAMES = new HashMap<>();
+
+    static {
+        TYPE_NAMES.put(String.class, "a string");
+        TYPE_NAMES.put(SInterpList.class, "a list");
+        TYPE_NAMES.put(SInterpMap.class, "a map");
+        TYPE_NAMES.put(SInterpBuffer.class, "a buffer");
+        TYPE_NAMES.put(SInterpFile.class, "a file");
+        TYPE_NAMES.put(SInterpMemo.class, "a memoized function");
+        TYPE_NAMES.put(SInterpCallable.class, "a function");
+    }
+
+    private static final MethodHandle TO_LONG = converter("toLong", long.class);
+    private static final MethodHandle TO_INT = converter("toInt", int.class);
+    private static final MethodHandle TO_DOUBLE = converter("toDouble", double.class);
+    private static final MethodHandle TO_BOOLEAN = converter("toBoolean", boolean.class);
+    private static final MethodHandle CHECK_TYPE;
+
+    static {
+        try {
+            CHECK_TYPE = LOOKUP.findStatic(NativeRegistry.class, "checkType",
+                    MethodType.methodType(Object.class, Class.class, String.class, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // holder 의 @Native 메서드를 모두 globals 에 등록한다.
+    static void register(Environment globals, Class<?> holder) {
+        for (Method method : holder.getDeclaredMethods()) {
+            Native annotation = method.getAnnotation(Native.class);
+            if (annotation == null)
+                continue;
+            String name = annotation.value().isEmpty() ? method.getName() : annotation.value();
+            globals.define(name, bind(method));
+        }
+    }
+
+    static NativeMethod bind(Method method) {
+        if (!Modifier.isStatic(method.getModifiers()))
+            throw new IllegalArgumentException("Native method must be static: " + method);
+        for (Class<?> exception : method.getExceptionTypes()) {
+            if (!RuntimeException.class.isAssignableFrom(exception) &&
+                    !Error.class.isAssignableFrom(exception))
+                throw new IllegalArgumentException(
+                        "Native method can't throw checked exceptions: " + method);
+        }
+
+        MethodHandle handle;
+        try {
+            handle = LOOKUP.unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(e);
+        }
+
+        // 앞에 Interpreter 파라미터를 맞춘다.
+        Class<?>[] params = method.getParameterTypes();
+        boolean takesInterpreter = params.length > 0 && params[0] == Interpreter.class;
+        if (!takesInterpreter)
+            handle = MethodHandles.dropArguments(handle, 0, Interpreter.class);
+        int arity = handle.type().parameterCount() - 1;
+
+        // 파라미터를 Object 에서 변환한다.
+        MethodHandle[] filters = new MethodHandle[arity];
+        for (int i = 0; i < arity; i++) {
+            filters[i] = parameterConverter(handle.type().parameterType(i + 1), method);
+        }
+        handle = MethodHandles.filterArguments(handle, 1, filters);
+
+        // 반환값을 스크립트 값으로 바꾼다.
+        Class<?> returnType = handle.type().returnType();
+        if (returnType == int.class || returnType == short.class || returnType == byte.class)
+            handle = handle.asType(handle.type().changeReturnType(long.class));
+        else if (returnType == float.class)
+            handle = handle.asType(handle.type().changeReturnType(double.class));
+        else if (returnType == char.class)
+            throw new IllegalArgumentException("Unsupported native return type: " + method);
+
+        return new NativeMethod(arity, handle.asType(MethodType.genericMethodType(arity)
+                .insertParameterTypes(0, Interpreter.class)));
+    }
+
+    private static MethodHandle parameterConverter(Class<?> type, Method method) {
+        if (type == Object.class)
+            return null;
+        if (type == long.class)
+            return TO_LONG;
+        if (type == int.class)
+            return TO_INT;
+        if (type == double.class)
+            return TO_DOUBLE;
+        if (type == boolean.class)
+            return TO_BOOLEAN;
+
+        String typeName = TYPE_NAMES.get(type);
+        if (typeName == null)
+            throw new IllegalArgumentException("Unsupported native parameter type " +
+                    type.getSimpleName() + ": " + method);
+        MethodHandle check = MethodHandles.insertArguments(CHECK_TYPE, 0, type, typeName);
+        return check.asType(MethodType.methodType(type, Object.class));
+    }
+
+    private static MethodHandle converter(String name, Class<?> type) {
+        try {
+            return LOOKUP.findStatic(NativeRegistry.class, name,
+                    MethodType.methodType(type, Object.class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Long)
+            return (long) value;
+        if (value instanceof Double && (double) value == Math.rint((double) value))
+            return (long) (double) value;
+        throw new NativeError("Argument must be an integer.");
+    }
+
+    private static int toInt(Object value) {
+        long v = toLong(value);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE)
+            throw new NativeError("Argument out of range.");
+        return (int) v;
+    }
+
+    private static double toDouble(Object value) {
+        if (NumberOps.isNumber(value))
+            return NumberOps.toDouble(value);
+        throw new NativeError("Argument must be a number.");
+    }
+
+    private static boolean toBoolean(Object value) {
+        return Interpreter.isTruthy(value);
+    }
+
+    private static Object checkType(Class<?> type, String typeName, Object value) {
+        if (type.isInstance(value))
+            return value;
+        throw new NativeError("Argument must be " + typeName + ".");
+    }
+}
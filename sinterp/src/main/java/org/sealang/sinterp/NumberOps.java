@@ -0,0 +1,153 @@
+package org.sealang.sinterp;
+
+/*
+* NumberOps
+* 숫자 값은 정수(Long)와 실수(Double) 두 가지로 표현된다.
+* 정수끼리의 연산은 정확한 64비트 결과를 내고, 오버플로가 나거나 나누어 떨어지지 않는
+* 나눗셈이면 실수로 승격한다. 정수와 실수가 섞이면 실수로 계산한다.
+* */
+final class NumberOps {
+    private NumberOps() {}
+
+    static boolean isNumber(Object value) {
+        return value instanceof Long || value instanceof Double;
+    }
+
+    static double toDouble(Object value) {
+        if (value instanceof Long)
+            return (double)(long)value;
+        return (double)value;
+    }
+
+    static Object add(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            long a = (long)left;
+            long b = (long)right;
+            long result = a + b;
+            if (((a ^ result) & (b ^ result)) < 0) // 부호가 뒤집히면 오버플로
+                return (double)a + (double)b;
+            return result;
+        }
+        return toDouble(left) + toDouble(right);
+    }
+
+    static Object subtract(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            long a = (long)left;
+            long b = (long)right;
+            long result = a - b;
+            if (((a ^ b) & (a ^ result)) < 0)
+                return (double)a - (double)b;
+            return result;
+        }
+        return toDouble(left) - toDouble(right);
+    }
+
+    static Object multiply(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            long a = (long)left;
+            long b = (long)right;
+            long high = Math.multiplyHigh(a, b);
+            long low = a * b;
+            // 상위 64비트가 하위 결과의 부호 확장이면 오버플로가 아니다.
+            if ((high == 0 && low >= 0) || (high == -1 && low < 0))
+                return low;
+            return (double)a * (double)b;
+        }
+        return toDouble(left) * toDouble(right);
+    }
+
+    static Object divide(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long) {
+            long a = (long)left;
+            long b = (long)right;
+            if (b != 0 && a % b == 0 && !(a == Long.MIN_VALUE && b == -1))
+                return a / b;
+            return (double)a / (double)b;
+        }
+        return toDouble(left) / toDouble(right);
+    }
+
+    static Object negate(Object value) {
+        if (value instanceof Long) {
+            long a = (long)value;
+            if (a == Long.MIN_VALUE)
+                return -(double)a;
+            return -a;
+        }
+        return -(double)value;
+    }
+
+    // left < right. NaN 이 섞이면 false
+    static boolean less(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long)
+            return (long)left < (long)right;
+        return toDouble(left) < toDouble(right);
+    }
+
+    static boolean lessEqual(Object left, Object right) {
+        if (left instanceof Long && right instanceof Long)
+            return (long)left <= (long)right;
+        return toDouble(left) <= toDouble(right);
+    }
+
+    // 정수와 실수는 값이 같으면 같은 숫자로 본다. (1 == 1.0)
+    static boolean equal(Object a, Object b) {
+        if (a instanceof Long && b instanceof Double)
+            return (double)(long)a == (double)b;
+        if (a instanceof Double && b instanceof Long)
+            return (double)a == (double)(long)b;
+        return a.equals(b);
+    }
+
+    // 10^0 ~ 10^22 는 double 로 정확히 표현된다.
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // 소스의 숫자 리터럴 chars[start, start + length). 형식은 digits ( "." digits )?
+    // 소수점이 없고 long 범위에 들어가면 정수가 된다. 같은 값은 pool 의 객체를 공유한다.
+    //
+    // 문자열을 만들지 않고 자릿수를 바로 누적한다. 실수는 가수가 2^53 이하이고 소수 자릿수가
+    // 22 이하이면 가수 / 10^소수자릿수 로 계산한다. 두 값이 모두 double 로 정확하므로
+    // 나눗셈 한 번의 반올림 결과가 Double.parseDouble 과 같다. 그 외에는 parseDouble 을 쓴다.
+    static Object parse(char[] chars, int start, int length, ConstantPool pool) {
+        int end = start + length;
+        long mantissa = 0;
+        int digits = 0; // 가수에 누적한 자릿수 (앞의 0 제외)
+        int fraction = -1; // 소수점 이하 자릿수. 소수점이 없으면 -1
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c == '.') {
+                fraction = 0;
+                continue;
+            }
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (c - '0');
+                if (mantissa != 0)
+                    digits++;
+            } else {
+                digits = Integer.MAX_VALUE; // 18 자리를 넘으면 long 에 다 담을 수 없다.
+            }
+            if (fraction >= 0)
+                fraction++;
+        }
+
+        if (fraction < 0 && digits <= 18)
+            return pool.of(mantissa);
+        if (fraction >= 0 && digits <= 18 && mantissa <= (1L << 53) &&
+                fraction < POWERS_OF_TEN.length)
+            return pool.of(mantissa / POWERS_OF_TEN[fraction]);
+
+        String text = new String(chars, start, length);
+        if (fraction < 0) {
+            try {
+                return pool.of(Long.parseLong(text));
+            } catch (NumberFormatException e) {
+                // long 범위를 넘으면 실수로 표현한다.
+            }
+        }
+        return pool.of(Double.parseDouble(text));
+    }
+}
@@ -0,0 +1,148 @@
+package org.sealang.sinterp;
+
+import java.util.Arrays;
+
+/*
+* 숫자 리스트 일괄 연산 내장 함수 : sum, dot, scale, addInto, min, max, fill
+*
+* 리스트가 double[] 로 저장되어 있으면 VectorKernels 로 처리하고,
+* 그 외(정수 리스트, 섞인 리스트)는 원소마다 NumberOps 로 계산해 정수 연산의 정확도를 유지한다.
+* scale, addInto, fill 은 리스트를 제자리에서 바꾸고 nil 을 돌려준다.
+* */
+final class NumericNatives {
+    private NumericNatives() {}
+
+    @Native
+    static Object sum(SInterpList list) {
+        double[] doubles = list.doubleArray();
+        if (doubles != null)
+            return VectorKernels.INSTANCE.sum(doubles, list.size());
+
+        Object sum = 0L;
+        for (int i = 0; i < list.size(); i++) {
+            sum = NumberOps.add(sum, number(list.get(i)));
+        }
+        return sum;
+    }
+
+    @Native
+    static Object dot(SInterpList a, SInterpList b) {
+        checkSameSize(a, b);
+        if (a.doubleArray() != null && b.doubleArray() != null)
+            return VectorKernels.INSTANCE.dot(a.doubleArray(), b.doubleArray(), a.size());
+
+        Object sum = 0L;
+        for (int i = 0; i < a.size(); i++) {
+            sum = NumberOps.add(sum,
+                    NumberOps.multiply(number(a.get(i)), number(b.get(i))));
+        }
+        return sum;
+    }
+
+    @Native
+    static void scale(SInterpList list, Object factor) {
+        if (!NumberOps.isNumber(factor))
+            throw new NativeError("Scale factor must be a number.");
+        // 실수를 곱하면 결과가 어차피 실수이므로 double[] 로 바꿔 처리한다.
+        if (list.doubleArray() != null || (factor instanceof Double && list.toDoubles())) {
+            VectorKernels.INSTANCE.scale(list.doubleArray(), list.size(),
+                    NumberOps.toDouble(factor));
+            return;
+        }
+
+        int i = 0;
+        long[] longs = list.longArray();
+        if (longs != null && factor instanceof Long) {
+            // 정수 리스트에 정수를 곱하면 넘치지 않는 한 long[] 을 그대로 쓴다.
+            long b = (long)factor;
+            for (; i < list.size(); i++) {
+                long a = longs[i];
+                long high = Math.multiplyHigh(a, b);
+                long low = a * b;
+                if ((high != 0 || low < 0) && (high != -1 || low >= 0))
+                    break;
+                longs[i] = low;
+            }
+        }
+        // 넘친 원소부터는 원소마다 계산한다. (저장 방식이 넓어진다.)
+        for (; i < list.size(); i++) {
+            list.set(i, NumberOps.multiply(number(list.get(i)), factor));
+        }
+    }
+
+    @Native
+    static void addInto(SInterpList target, SInterpList source) {
+        checkSameSize(target, source);
+        if (source.doubleArray() != null && target.toDoubles()) {
+            VectorKernels.INSTANCE.addInto(target.doubleArray(), source.doubleArray(),
+                    target.size());
+            return;
+        }
+
+        for (int i = 0; i < target.size(); i++) {
+            target.set(i, NumberOps.add(number(target.get(i)), number(source.get(i))));
+        }
+    }
+
+    @Native
+    static Object min(SInterpList list) {
+        checkNotEmpty(list, "min");
+        double[] doubles = list.doubleArray();
+        if (doubles != null)
+            return VectorKernels.INSTANCE.min(doubles, list.size());
+
+        Object min = number(list.get(0));
+        for (int i = 1; i < list.size(); i++) {
+            Object value = number(list.get(i));
+            if (NumberOps.less(value, min))
+                min = value;
+        }
+        return min;
+    }
+
+    @Native
+    static Object max(SInterpList list) {
+        checkNotEmpty(list, "max");
+        double[] doubles = list.doubleArray();
+        if (doubles != null)
+            return VectorKernels.INSTANCE.max(doubles, list.size());
+
+        Object max = number(list.get(0));
+        for (int i = 1; i < list.size(); i++) {
+            Object value = number(list.get(i));
+            if (NumberOps.less(max, value))
+                max = value;
+        }
+        return max;
+    }
+
+    @Native
+    static void fill(SInterpList list, Object value) {
+        double[] doubles = list.doubleArray();
+        long[] longs = list.longArray();
+        if (doubles != null && value instanceof Double) {
+            Arrays.fill(doubles, 0, list.size(), (double)value);
+        } else if (longs != null && value instanceof Long) {
+            Arrays.fill(longs, 0, list.size(), (long)value);
+        } else {
+            // 저장 방식을 value 에 맞게 다시 만든다. (정수로 채우면 long[])
+            list.fill(value);
+        }
+    }
+
+    private static Object number(Object value) {
+        if (NumberOps.isNumber(value))
+            return value;
+        throw new NativeError("List elements must be numbers.");
+    }
+
+    private static void checkSameSize(SInterpList a, SInterpList b) {
+        if (a.size() != b.size())
+            throw new NativeError("Lists must have the same size.");
+    }
+
+    private static void checkNotEmpty(SInterpList list, String name) {
+        if (list.size() == 0)
+            throw new NativeError("Can't take " + name + " of an empty list.");
+    }
+}
@@ -0,0 +1,216 @@
+package org.sealang.sinterp;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+* 병렬 내장 함수 : parallelMap(list, fn), parallelReduce(list, fn, init)
+*
+* 리스트를 구간으로 나눠 ForkJoinPool 의 작업으로 실행한다. 각 구간은 자기 전용
+* Interpreter(전역 환경과 리졸브 결과만 공유)로 함수를 호출하므로 호출 중의 현재 환경이
+* 스레드끼리 섞이지 않는다.
+*
+* 전역 환경은 동기화되지 않으므로 실행하는 동안 잠가 둔다. 함수는 전역 변수를 읽을 수만 있고,
+* 전역 변수에 대입하면 런타임 에러가 난다. 리스트, 맵, 인스턴스 같은 공유 객체를 바꾸는 것은
+* 검사하지 않으며 동기화되지 않는다.
+*
+* 에러가 나면 가장 앞쪽 원소에서 난 에러를 호출한 스레드에서 다시 던진다.
+* 순서대로 실행했을 때와 같은 에러(같은 라인)가 보고된다.
+* */
+final class ParallelNatives {
+    private ParallelNatives() {}
+
+    @Native
+    static SInterpList parallelMap(Interpreter interpreter, SInterpList list, Object fn) {
+        SInterpCallable function = callable(fn, 1);
+
+        // 작업 스레드에서 리스트를 읽지 않도록 원소를 미리 꺼내 둔다.
+        Object[] input = elements(list);
+        Object[] output = new Object[input.length];
+        Outcome outcome = invoke(interpreter, new MapTask(interpreter, function, input, output,
+                0, input.length, threshold(input.length)));
+        outcome.rethrow();
+
+        SInterpList result = new SInterpList(output.length);
+        for (Object value : output) {
+            result.add(value);
+        }
+        return result;
+    }
+
+    // fn 은 결합 법칙을 만족해야 한다. 구간별로 줄인 값을 다시 fn 으로 합치고,
+    // 마지막에 fn(init, 전체 결과)를 돌려준다. 빈 리스트면 init
+    @Native
+    static Object parallelReduce(Interpreter interpreter, SInterpList list, Object fn,
+                                 Object init) {
+        SInterpCallable function = callable(fn, 2);
+
+        Object[] input = elements(list);
+        if (input.length == 0)
+            return init;
+
+        Outcome outcome = invoke(interpreter, new ReduceTask(interpreter, function, input,
+                0, input.length, threshold(input.length)));
+        outcome.rethrow();
+        return function.call(interpreter, Arrays.asList(init, outcome.value));
+    }
+
+    // 작업이 끝날 때까지 전역 환경을 잠근다.
+    private static Outcome invoke(Interpreter interpreter, RecursiveTask<Outcome> task) {
+        interpreter.globals.freeze();
+        try {
+            return ForkJoinPool.commonPool().invoke(task);
+        } finally {
+            interpreter.globals.unfreeze();
+        }
+    }
+
+    private static SInterpCallable callable(Object value, int arity) {
+        if (!(value instanceof SInterpCallable))
+            throw new NativeError("Argument must be a function.");
+        SInterpCallable function = (SInterpCallable) value;
+        if (function.arity() != arity)
+            throw new NativeError("Function must take " + arity +
+                    (arity == 1 ? " argument." : " arguments."));
+        return function;
+    }
+
+    private static Object[] elements(SInterpList list) {
+        Object[] elements = new Object[list.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = list.get(i);
+        }
+        return elements;
+    }
+
+    // 작업 스레드마다 몇 개의 구간이 돌아가도록 나눈다.
+    private static int threshold(int length) {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        return Math.max(1, length / (parallelism * 4));
+    }
+
+    // 구간 실행 결과. 에러가 나면 그 원소의 인덱스와 에러를 담는다.
+    private static class Outcome {
+        final Object value;
+        final int errorIndex;
+        final RuntimeException error;
+
+        Outcome(Object value) {
+            this(value, Integer.MAX_VALUE, null);
+        }
+
+        Outcome(Object value, int errorIndex, RuntimeException error) {
+            this.value = value;
+            this.errorIndex = errorIndex;
+            this.error = error;
+        }
+
+        // 두 구간 중 앞쪽 에러를 남긴다.
+        static Outcome first(Outcome left, Outcome right) {
+            return right.errorIndex < left.errorIndex ? right : left;
+        }
+
+        void rethrow() {
+            if (error != null)
+                throw error;
+        }
+    }
+
+    private static class MapTask extends RecursiveTask<Outcome> {
+        private final Interpreter parent;
+        private final SInterpCallable function;
+        private final Object[] input;
+        private final Object[] output;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        MapTask(Interpreter parent, SInterpCallable function, Object[] input, Object[] output,
+                int from, int to, int threshold) {
+            this.parent = parent;
+            this.function = function;
+            this.input = input;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Outcome compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                MapTask left = new MapTask(parent, function, input, output, from, middle, threshold);
+                MapTask right = new MapTask(parent, function, input, output, middle, to, threshold);
+                left.fork();
+                Outcome rightOutcome = right.compute();
+                return Outcome.first(left.join(), rightOutcome);
+            }
+
+            Interpreter worker = new Interpreter(parent);
+            for (int i = from; i < to; i++) {
+                try {
+                    output[i] = function.call(worker, Arrays.asList(input[i]));
+                } catch (RuntimeError | NativeError error) {
+                    return new Outcome(null, i, error);
+                }
+            }
+            return new Outcome(null);
+        }
+    }
+
+    private static class ReduceTask extends RecursiveTask<Outcome> {
+        private final Interpreter parent;
+        private final SInterpCallable function;
+        private final Object[] input;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        ReduceTask(Interpreter parent, SInterpCallable function, Object[] input,
+                   int from, int to, int threshold) {
+            this.parent = parent;
+            this.function = function;
+            this.input = input;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Outcome compute() {
+            if (to - from > threshold) {
+                int middle = (from + to) >>> 1;
+                ReduceTask left = new ReduceTask(parent, function, input, from, middle, threshold);
+                ReduceTask right = new ReduceTask(parent, function, input, middle, to, threshold);
+                left.fork();
+                Outcome rightOutcome = right.compute();
+                Outcome leftOutcome = left.join();
+                if (leftOutcome.error != null || rightOutcome.error != null)
+                    return Outcome.first(leftOutcome, rightOutcome);
+                return combine(new Interpreter(parent), leftOutcome.value, rightOutcome.value,
+                        to - 1);
+            }
+
+            Interpreter worker = new Interpreter(parent);
+            Object value = input[from];
+            for (int i = from + 1; i < to; i++) {
+                Outcome outcome = combine(worker, value, input[i], i);
+                if (outcome.error != null)
+                    return outcome;
+                value = outcome.value;
+            }
+            return new Outcome(value);
+        }
+
+        // index 는 에러 순서를 정할 때 쓰는 위치. 두 구간을 합칠 때는 오른쪽 구간의 끝으로 본다.
+        private Outcome combine(Interpreter worker, Object left, Object right, int index) {
+            try {
+                return new Outcome(function.call(worker, Arrays.asList(left, right)));
+            } catch (RuntimeError | NativeError error) {
+                return new Outcome(null, index, error);
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package org.sealang.sinterp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/*
+* 큰 소스를 최상위 선언 경계에서 청크로 나눠 ForkJoinPool 에서 병렬로 스캔/파싱한다.
+*
+* 경계는 괄호 깊이가 0 이 되는 ';' 또는 '}' 바로 뒤이다. 문자열과 주석 안의 문자는 세지 않고,
+* 다음 단어가 else 이면 if 문이 이어지므로 경계로 쓰지 않는다. 각 청크는 완전한 선언들로
+* 이루어지므로 청크별 결과를 이어 붙이면 전체를 한 번에 파싱한 결과와 같다.
+* 청크마다 시작 라인을 넘겨 토큰의 라인 번호도 같다.
+*
+* 작업 스레드에서는 구문 에러를 출력하지 않는다. 어느 청크에서든 에러가 나면 결과를 버리고
+* 호출한 쪽이 처음부터 순서대로 다시 파싱하므로, 에러 메시지와 순서가 항상 같다.
+* */
+final class ParallelParser {
+    private ParallelParser() {}
+
+    // 이보다 작은 청크로는 나누지 않는다.
+    private static final int MIN_CHUNK_SIZE = 64 * 1024;
+
+    // 병렬로 파싱한 선언들. 나눌 수 없을 만큼 작거나 에러가 났으면 null
+    static List<Stmt> parse(char[] source, boolean lazyBodies) {
+        int parallelism = ForkJoinPool.commonPool().getParallelism();
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, source.length / (parallelism * 4));
+        if (source.length < chunkSize * 2)
+            return null;
+
+        List<int[]> chunks = split(source, 0, source.length, 1, chunkSize);
+        if (chunks == null || chunks.size() < 3)
+            return null;
+
+        List<ChunkTask> tasks = new ArrayList<>();
+        for (int i = 0; i + 1 < chunks.size(); i++) {
+            tasks.add(new ChunkTask(source, chunks.get(i)[0], chunks.get(i + 1)[0],
+                    chunks.get(i)[1], lazyBodies));
+        }
+        ForkJoinTask.invokeAll(tasks);
+
+        List<Stmt> statements = new ArrayList<>();
+        for (ChunkTask task : tasks) {
+            List<Stmt> chunk = task.join();
+            if (chunk == null)
+                return null;
+            statements.addAll(chunk);
+        }
+        return statements;
+    }
+
+    // source[from, to) 를 최상위 선언 경계에서 나눈 청크들의 시작 위치와 그 위치의 라인.
+    // line 은 from 위치의 라인이다. 마지막 원소는 {to, to 위치의 라인} 이다.
+    // 괄호가 맞지 않거나, to 가 소스의 끝이 아닌데 선언 경계가 아니면 null
+    static List<int[]> split(char[] source, int from, int to, int line, int chunkSize) {
+        List<int[]> chunks = new ArrayList<>();
+        chunks.add(new int[] {from, line});
+
+        int depth = 0;
+        int next = from + chunkSize; // 이 위치를 넘은 첫 경계에서 나눈다.
+        boolean atBoundary = true; // 마지막으로 본 토큰 문자가 경계를 만든 ';' 또는 '}' 인지
+        int i = from;
+        while (i < to) {
+            char c = source[i++];
+            switch (c) {
+                case ' ':
+                case '\t':
+                case '\r':
+                    break;
+
+                case '\n':
+                    line++;
+                    break;
+
+                case '"':
+                    // 문자열 안에는 줄바꿈이 들어갈 수 있다.
+                    while (i < to && source[i] != '"') {
+                        if (source[i] == '\n')
+                            line++;
+                        i++;
+                    }
+                    if (i == to)
+                        return to == source.length ? finish(chunks, to, line) : null;
+                    i++;
+                    atBoundary = false;
+                    break;
+
+                case '/':
+                    if (i < to && source[i] == '/') {
+                        while (i < to && source[i] != '\n')
+                            i++;
+                        // 주석이 다음 청크까지 이어진다.
+                        if (i == to && to < source.length && source[to] != '\n')
+                            return null;
+                    } else {
+                        atBoundary = false;
+                    }
+                    break;
+
+                case '(':
+                case '[':
+                case '{':
+                    depth++;
+                    atBoundary = false;
+                    break;
+
+                case ')':
+                case ']':
+                    depth--;
+                    atBoundary = false;
+                    break;
+
+                case '}':
+                case ';':
+                    if (c == '}')
+                        depth--;
+                    atBoundary = depth == 0;
+                    if (depth == 0 && i >= next && i < to && !followedByElse(source, i)) {
+                        chunks.add(new int[] {i, line});
+                        next = i + chunkSize;
+                    }
+                    break;
+
+                default:
+                    atBoundary = false;
+                    break;
+            }
+            if (depth < 0)
+                return null;
+        }
+
+        if (to < source.length && (depth != 0 || !atBoundary))
+            return null;
+        return finish(chunks, to, line);
+    }
+
+    private static List<int[]> finish(List<int[]> chunks, int to, int line) {
+        chunks.add(new int[] {to, line});
+        return chunks;
+    }
+
+    // source[i] 부터 공백과 주석을 건너뛴 다음 단어가 else 인지
+    private static boolean followedByElse(char[] source, int i) {
+        while (i < source.length) {
+            char c = source[i];
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                i++;
+            } else if (c == '/' && i + 1 < source.length && source[i + 1] == '/') {
+                while (i < source.length && source[i] != '\n')
+                    i++;
+            } else {
+                break;
+            }
+        }
+
+        String keyword = "else";
+        if (i + keyword.length() > source.length)
+            return false;
+        for (int k = 0; k < keyword.length(); k++) {
+            if (source[i + k] != keyword.charAt(k))
+                return false;
+        }
+        int end = i + keyword.length();
+        return end == source.length || !isIdentifierPart(source[end]);
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') ||
+                (c >= '0' && c <= '9') || c == '_';
+    }
+
+    // 청크 하나를 스캔, 파싱한다. 구문 에러가 나면 null
+    private static class ChunkTask extends RecursiveTask<List<Stmt>> {
+        private final char[] source;
+        private final int from;
+        private final int to;
+        private final int line;
+        private final boolean lazyBodies;
+
+        ChunkTask(char[] source, int from, int to, int line, boolean lazyBodies) {
+            this.source = source;
+            this.from = from;
+            this.to = to;
+            this.line = line;
+            this.lazyBodies = lazyBodies;
+        }
+
+        @Override
+        protected List<Stmt> compute() {
+            List<List<Stmt>> result = new ArrayList<>(1);
+            boolean failed = SInterp.hadSilentError(() -> {
+                TokenStream tokens = new Scanner(source, from, to, line).scanPacked();
+                result.add(new Parser(tokens, lazyBodies).parse());
+            });
+            return failed ? null : result.get(0);
+        }
+    }
+}
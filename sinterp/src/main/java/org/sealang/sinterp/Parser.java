@@ -2,7 +2,9 @@ package org.sealang.sinterp;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.sealang.sinterp.TokenType.*;
 
@@ -22,17 +24,21 @@ import static org.sealang.sinterp.TokenType.*;
 
     statement   → exprStmt
                 | forStmt
+                | forInStmt
                 | ifStmt
                 | printStmt
                 | returnStmt
                 | whileStmt
+                | yieldStmt
                 | block ;
 
     returnStmt  → "return" expression? ";" ;
+    yieldStmt   → "yield" expression? ";" ;
 
     forStmt     → "for" "(" ( varDecl | exprStmt | ";" )
                   expression? ";"
                   expression? ")" statement ;
+    forInStmt   → "for" "(" "var" IDENTIFIER "in" expression ")" statement ;
 
     whileStmt   → "while" "(" expression ")" statement ;
 
@@ -46,9 +52,12 @@ import static org.sealang.sinterp.TokenType.*;
                 ( "else" statement )? ;
 
     expression  → assignment ;
-    assignment  → ( call ".")? IDENTIFIER "=" assignment
+    assignment  → ( call ".")? IDENTIFIER ( "=" | "+=" | "-=" ) assignment
+                | call "[" expression "]" "=" assignment
                 | logic_or ;
 
+    assignment 부터 factor 까지의 이항 연산은 우선순위 표로 파싱한다. (parsePrecedence)
+
     logic_or    → logic_and ( "or" logic_and )* ;
     logic_and   → equality ( "and" equality )* ;
 
@@ -56,13 +65,16 @@ import static org.sealang.sinterp.TokenType.*;
     comparison  → term ( ( ">" | ">=" | "<" | "<=" ) term )* ;
     term        → factor ( ( "-" | "+" ) factor )* ;
     factor      → unary ( ( "/" | "*" ) unary )* ;
-    unary       → ( "!" | "-" ) unary | call ;
-    call        → primary ( "(" arguments? ")" | "." IDENTIFIER )* ;
+    unary       → ( "!" | "-" | "++" | "--" ) unary | postfix ;
+    postfix     → call ( "++" | "--" )? ;
+    call        → primary ( "(" arguments? ")" | "." IDENTIFIER
+                          | "[" expression "]" )* ;
     arguments   → expression ( "," expression )* ;
 
     primary     → "true" | "false" | "nil"
                 | NUMBER | STRING
                 | "(" expression ")"
+                | "[" ( expression ( "," expression )* )? "]"
                 | IDENTIFIER ;
  */
 
@@ -70,11 +82,45 @@ import static org.sealang.sinterp.TokenType.*;
 // AST 구축
 class Parser {
     private static class ParseError extends RuntimeException {}
+    // 소스 전체를 스캔한 토큰. 스캐너에서 읽어 오면 null
+    private final TokenStream packed;
+    // 스캐너에서 필요할 때마다 읽어 온 토큰
     private final List<Token> tokens;
+    private final Scanner scanner;
     private int current = 0;
+    // 파싱 중인 함수 본문에 나온 yield 의 수. 0 보다 크면 제너레이터 함수이다.
+    private int yields = 0;
+    // true 이면 최상위 함수와 메서드의 본문을 건너뛰고 LazyBody 로 남긴다.
+    private final boolean lazyBodies;
+    // 감싸고 있는 블록의 수. 0 이면 최상위 선언을 파싱하는 중이다.
+    private int blockDepth = 0;
+
+    // 본문 토큰이 이보다 적은 함수는 바로 파싱한다. 건너뛰어도 얻는 게 적고 인라이닝 후보일 수 있다.
+    private static final int LAZY_MIN_TOKENS = 64;
+
+    Parser(TokenStream packed) {
+        this(packed, false);
+    }
+
+    Parser(TokenStream packed, boolean lazyBodies) {
+        this.packed = packed;
+        this.tokens = null;
+        this.scanner = null;
+        this.lazyBodies = lazyBodies;
+    }
 
-    Parser(List<Token> tokens) {
-        this.tokens = tokens;
+    Parser(Scanner scanner) {
+        this.packed = null;
+        this.tokens = new ArrayList<>();
+        this.scanner = scanner;
+        this.lazyBodies = false;
+    }
+
+    // 건너뛰었던 함수 본문을 파싱한다. packed 는 본문 '{' 부터 '}' 까지를 스캔한 토큰이다.
+    static List<Stmt> parseBody(TokenStream packed) {
+        Parser parser = new Parser(packed);
+        parser.consume(LBRACE, "Expect '{' before function body.");
+        return parser.block();
     }
 
     List<Stmt> parse() {
@@ -87,9 +133,23 @@ class Parser {
         return statements;
     }
 
+    boolean hasNext() {
+        return !isAtEnd();
+    }
+
+    // 최상위 선언 하나를 파싱한다. 구문 에러가 나면 null
+    Stmt parseNext() {
+        // 이미 소비한 토큰은 버린다. previous() 를 위해 마지막 토큰 하나는 남긴다.
+        if (tokens != null && current > 1) {
+            tokens.subList(0, current - 1).clear();
+            current = 1;
+        }
+        return declaration();
+    }
+
     // expression  → assignment ;
     private Expr expression() {
-        return assignment();
+        return parsePrecedence(ASSIGNMENT);
     }
 
     private Stmt declaration() {
@@ -109,7 +169,7 @@ class Parser {
     }
 
     private Stmt classDeclaration() {
-        Token name = consume(IDENTIFIER, "Expect class name");
+        Token name = consumeToken(IDENTIFIER, "Expect class name");
         consume(LBRACE, "Expect '{' before class body.");
 
         List<Stmt.Function> methods = new ArrayList<>();
@@ -135,6 +195,9 @@ class Parser {
         if (match(RETURN))
             return returnStatement();
 
+        if (match(YIELD))
+            return yieldStatement();
+
         if (match(WHILE))
             return whileStatement();
 
@@ -147,6 +210,10 @@ class Parser {
     private Stmt forStatement() {
         consume(LPAREN, "Expect '(' after 'for'.");
 
+        // for (var x in ...
+        if (check(VAR) && type(current + 1) == IDENTIFIER && type(current + 2) == IN)
+            return forInStatement();
+
         // 초기화절
         Stmt initializer;
         if (match(SEMICOLON)) { // 'for (;' 초기화가 없는 상황.
@@ -193,6 +260,17 @@ class Parser {
         return body;
     }
 
+    private Stmt forInStatement() {
+        consume(VAR, "Expect 'var' in for-in loop.");
+        Token name = consumeToken(IDENTIFIER, "Expect variable name.");
+        consume(IN, "Expect 'in' after loop variable.");
+        Expr iterable = expression();
+        consume(RPAREN, "Expect ')' after for-in clause.");
+        Stmt body = statement();
+
+        return new Stmt.ForIn(name, iterable, body);
+    }
+
     private Stmt ifStatement() {
         consume(LPAREN, "Expect '(' after 'if'.");
         Expr condition = expression();
@@ -224,8 +302,20 @@ class Parser {
         return new Stmt.Return(keyword, value);
     }
 
+    private Stmt yieldStatement() {
+        Token keyword = previous();
+        Expr value = null;
+        if (!check(SEMICOLON)) {
+            value = expression();
+        }
+
+        consume(SEMICOLON, "Expect ';' after yield value.");
+        yields++;
+        return new Stmt.Yield(keyword, value);
+    }
+
     private Stmt varDeclaration() {
-        Token name = consume(IDENTIFIER, "Expect variable name.");
+        Token name = consumeToken(IDENTIFIER, "Expect variable name.");
 
         Expr initializer = null;
         if (match(EQUAL)) {
@@ -253,7 +343,7 @@ class Parser {
 
     // kind : "function" or "method" 를 전달. 일반 함수와 클래스 메서드를 구분하기 위함.
     private Stmt.Function function(String kind) {
-        Token name = consume(IDENTIFIER, "Expect " + kind + " name.");
+        Token name = consumeToken(IDENTIFIER, "Expect " + kind + " name.");
         consume(LPAREN, "Expect '(' after " + kind + " name.");
         List<Token> parameters = new ArrayList<>();
         if (!check(RPAREN)) {
@@ -262,133 +352,217 @@ class Parser {
                     error(peek(), "Can't have more than 255 parameters.");
                 }
 
-                parameters.add(consume(IDENTIFIER, "Expect parameter name."));
+                parameters.add(consumeToken(IDENTIFIER, "Expect parameter name."));
             } while (match(COMMA));
         }
         consume(RPAREN, "Expect ')' after parameters.");
 
         consume(LBRACE, "Expect '{' before " + kind + " body.");
+        if (lazyBodies && blockDepth == 0) {
+            Set<String> assigned = new HashSet<>();
+            int end = matchingBrace(current, assigned);
+            if (end - current >= LAZY_MIN_TOKENS) {
+                int brace = current - 1;
+                LazyBody body = new LazyBody(packed.source(), packed.start(brace),
+                        packed.start(end) + 1, packed.line(brace), kind.equals("method"),
+                        assigned);
+                current = end + 1;
+                return new Stmt.Function(name, parameters, body, false);
+            }
+        }
+
+        // 안쪽 함수의 yield 는 바깥 함수를 제너레이터로 만들지 않는다.
+        int enclosingYields = yields;
+        yields = 0;
         List<Stmt> body = block();
-        return new Stmt.Function(name, parameters, body);
+        boolean generator = yields > 0;
+        yields = enclosingYields;
+        return new Stmt.Function(name, parameters, body, generator);
     }
 
     private List<Stmt> block() {
         List<Stmt> statements = new ArrayList<>();
 
+        blockDepth++;
         while(!check(RBRACE) && !isAtEnd()) { // isAtEnd() 는 사용자가 } 을 빠뜨려도 파서가 멈추지 않도록 한다.
             statements.add(declaration());
         }
+        blockDepth--;
 
         consume(RBRACE, "Expect '}' after block.");
         return statements;
     }
 
-    private Expr assignment() {
-        Expr expr = or(); // logic_or
-
-        if (match(EQUAL)) {
-            Token equals = previous();
-            Expr value = assignment();
-
-            // expr 이 변수(Variable)인지 확인하여, 변수면 Assign 노드 구성
-            if (expr instanceof Expr.Variable) {
-                Token name = ((Expr.Variable)expr).name;
-                return new Expr.Assign(name, value);
-            } else if (expr instanceof Expr.Get) {
-                Expr.Get get = (Expr.Get)expr;
-                return new Expr.Set(get.object, get.name, value);
+    // start 부터 괄호를 세어 짝이 맞는 '}' 의 인덱스를 찾는다. 제너레이터는 본문을 봐야
+    // 알 수 있으므로 yield 가 있거나, 짝이 맞지 않고 EOF 에 닿으면 -1
+    // 지나가면서 본문에서 대입되는 변수 이름을 assigned 에 모은다. (Inliner 가 쓴다.)
+    private int matchingBrace(int start, Set<String> assigned) {
+        int depth = 1;
+        for (int i = start; ; i++) {
+            switch (packed.type(i)) {
+                case LBRACE:
+                    depth++;
+                    break;
+                case RBRACE:
+                    if (--depth == 0)
+                        return i;
+                    break;
+                case IDENTIFIER:
+                    if (isAssignmentTarget(i))
+                        assigned.add(((Symbol) packed.literal(i)).name);
+                    break;
+                case YIELD:
+                case EOF:
+                    return -1;
             }
-
-            error(equals, "Invalid assignment target.");
         }
-        return expr;
     }
 
-    private Expr or() {
-        Expr expr = and();
-
-        while(match(OR)) {
-            Token operator = previous();
-            Expr right = and();
-            expr = new Expr.Logical(expr, operator, right);
+    // index 의 식별자가 =, +=, -=, ++, -- 로 바뀌는 변수인지. 필드(a.b = v)는 빼지만
+    // ++a.b 의 a 처럼 아닌 것을 넣을 수는 있다. (인라인을 덜 할 뿐이다.)
+    private boolean isAssignmentTarget(int index) {
+        TokenType before = packed.type(index - 1);
+        if (before == DOT)
+            return false;
+        if (before == PLUS_PLUS || before == MINUS_MINUS)
+            return true;
+
+        switch (packed.type(index + 1)) {
+            case EQUAL:
+            case PLUS_EQUAL:
+            case MINUS_EQUAL:
+            case PLUS_PLUS:
+            case MINUS_MINUS:
+                return true;
+            default:
+                return false;
         }
-
-        return expr;
     }
 
-    private Expr and() {
-        Expr expr = equality();
+    // 이항 연산자의 우선순위. 클수록 먼저 묶인다. 대입만 오른쪽 결합이다.
+    private static final int NONE = 0;
+    private static final int ASSIGNMENT = 1; // = += -=
+    private static final int LOGIC_OR = 2;   // or
+    private static final int LOGIC_AND = 3;  // and
+    private static final int EQUALITY = 4;   // == !=
+    private static final int COMPARISON = 5; // < <= > >=
+    private static final int TERM = 6;       // + -
+    private static final int FACTOR = 7;     // * /
 
-        while(match(OR)) {
-            Token operator = previous();
-            Expr right = equality();
-            expr = new Expr.Logical(expr, operator, right);
-        }
+    // TokenType 의 ordinal 로 찾는 중위 연산자 우선순위. 연산자가 아니면 NONE
+    private static final int[] infixPrecedence = new int[TokenType.values().length];
 
-        return expr;
+    static {
+        setPrecedence(ASSIGNMENT, EQUAL, PLUS_EQUAL, MINUS_EQUAL);
+        setPrecedence(LOGIC_OR, OR);
+        setPrecedence(LOGIC_AND, AND);
+        setPrecedence(EQUALITY, BANG_EQUAL, EQUAL_EQUAL);
+        setPrecedence(COMPARISON, GREATER, GREATER_EQUAL, LESS, LESS_EQUAL);
+        setPrecedence(TERM, MINUS, PLUS);
+        setPrecedence(FACTOR, SLASH, STAR);
     }
 
-    // equality → comparison ( ( "!=" | "==" ) comparison )* ;
-    private Expr equality() {
-        Expr expr = comparison();
-
-        while (match(BANG_EQUAL, EQUAL_EQUAL)) {
-            Token operator = previous();
-            Expr right = comparison();
-            expr = new Expr.Binary(expr, operator, right);
+    private static void setPrecedence(int precedence, TokenType... types) {
+        for (TokenType type : types) {
+            infixPrecedence[type.ordinal()] = precedence;
         }
-
-        return expr;
     }
 
-    // comparison → term ( ( ">" | ">=" | "<" | "<=" ) term )* ;
-    private Expr comparison() {
-        Expr expr = term();
+    // 우선순위가 precedence 이상인 중위 연산자까지 묶은 식 (Pratt 파서)
+    // 재귀 하강 파서의 assignment → ... → unary 와 같은 트리를 만든다.
+    private Expr parsePrecedence(int precedence) {
+        Expr expr = unary();
+
+        while (true) {
+            TokenType type = type(current);
+            int infix = infixPrecedence[type.ordinal()];
+            if (infix == NONE || infix < precedence)
+                return expr;
 
-        while (match(GREATER, GREATER_EQUAL, LESS, LESS_EQUAL)) {
+            advance();
             Token operator = previous();
-            Expr right = term();
-            expr = new Expr.Binary(expr, operator, right);
+            switch (infix) {
+                case ASSIGNMENT:
+                    expr = assignment(expr, operator, parsePrecedence(ASSIGNMENT));
+                    break;
+                case LOGIC_OR:
+                case LOGIC_AND:
+                    expr = new Expr.Logical(expr, operator, parsePrecedence(infix + 1));
+                    break;
+                default:
+                    expr = new Expr.Binary(expr, operator, parsePrecedence(infix + 1));
+                    break;
+            }
         }
-
-        return expr;
     }
 
-    //term → factor ( ( "-" | "+" ) factor )* ;
-    private Expr term() {
-        Expr expr = factor();
+    // target = value, target += value, target -= value
+    private Expr assignment(Expr target, Token operator, Expr value) {
+        if (operator.type != EQUAL)
+            return compoundAssignment(target, operator, value, false);
+
+        // target 이 변수(Variable)인지 확인하여, 변수면 Assign 노드 구성
+        if (target instanceof Expr.Variable) {
+            Token name = ((Expr.Variable)target).name;
+            return new Expr.Assign(name, value);
+        } else if (target instanceof Expr.Get) {
+            Expr.Get get = (Expr.Get)target;
+            return new Expr.Set(get.object, get.name, value);
+        } else if (target instanceof Expr.Index) {
+            Expr.Index index = (Expr.Index)target;
+            return new Expr.IndexSet(index.object, index.bracket, index.index, value);
+        }
 
-        while (match(MINUS, PLUS)) {
-            Token operator = previous();
-            Expr right = factor();
-            expr = new Expr.Binary(expr, operator, right);
+        error(operator, "Invalid assignment target.");
+        return target;
+    }
+
+    // +=, -=, ++, -- 의 대상을 검사하고 한 번에 읽고 쓰는 노드를 만든다.
+    private Expr compoundAssignment(Expr target, Token operator, Expr value,
+                                    boolean postfix) {
+        if (target instanceof Expr.Variable) {
+            Token name = ((Expr.Variable)target).name;
+            return new Expr.CompoundAssign(name, operator, value, postfix);
+        } else if (target instanceof Expr.Get) {
+            Expr.Get get = (Expr.Get)target;
+            return new Expr.CompoundSet(get.object, get.name, operator, value, postfix);
+        } else if (target instanceof Expr.Index) {
+            Expr.Index index = (Expr.Index)target;
+            return new Expr.CompoundIndexSet(index.object, index.bracket, index.index,
+                    operator, value, postfix);
         }
 
-        return expr;
+        error(operator, "Invalid assignment target.");
+        return target;
     }
 
-    // factor → unary ( ( "/" | "*" ) unary )* ;
-    private Expr factor() {
-        Expr expr = unary();
-
-        while (match(SLASH, STAR)) {
+    // unary → ( "!" | "-" | "++" | "--" ) unary | postfix ;
+    private Expr unary() {
+        if (match(BANG, MINUS)) {
             Token operator = previous();
             Expr right = unary();
-            expr = new Expr.Binary(expr, operator, right);
+            return new Expr.Unary(operator, right);
         }
 
-        return expr;
+        if (match(PLUS_PLUS, MINUS_MINUS)) { // 전위 증감은 바뀐 값을 돌려준다.
+            Token operator = previous();
+            Expr target = unary();
+            return compoundAssignment(target, operator, new Expr.Literal(1L), false);
+        }
+
+        return postfix();
     }
 
-    // unary → ( "!" | "-" ) unary | primary ;
-    private Expr unary() {
-        if (match(BANG, MINUS)) {
+    // postfix → call ( "++" | "--" )? ;
+    private Expr postfix() {
+        Expr expr = call();
+
+        if (match(PLUS_PLUS, MINUS_MINUS)) { // 후위 증감은 바뀌기 전 값을 돌려준다.
             Token operator = previous();
-            Expr right = unary();
-            return new Expr.Unary(operator, right);
+            return compoundAssignment(expr, operator, new Expr.Literal(1L), true);
         }
 
-        return call();
+        return expr;
     }
 
     private Expr finishCall(Expr callee) {
@@ -401,13 +575,13 @@ class Parser {
                 arguments.add(expression());
             } while (match(COMMA));
         }
-        Token paren = consume(RPAREN,
+        Token paren = consumeToken(RPAREN,
                 "Expect ')' after arguments.");
 
         return new Expr.Call(callee, paren, arguments);
     }
 
-    // call        → primary ( "(" arguments? ")" | "." IDENTIFIER )* ;
+    // call        → primary ( "(" arguments? ")" | "." IDENTIFIER | "[" expression "]" )* ;
     private Expr call() {
         Expr expr = primary();
 
@@ -415,9 +589,13 @@ class Parser {
             if (match(LPAREN)) { // "(" arguments? ")"
                 expr = finishCall(expr);
             } else if(match(DOT)) { // "." IDENTIFIER
-                Token name = consume(IDENTIFIER,
+                Token name = consumeToken(IDENTIFIER,
                         "Expect property name atfer '.'.");
                 expr = new Expr.Get(expr, name);
+            } else if (match(LBRACKET)) { // "[" expression "]"
+                Expr index = expression();
+                Token bracket = consumeToken(RBRACKET, "Expect ']' after index.");
+                expr = new Expr.Index(expr, bracket, index);
             } else {
                 break;
             }
@@ -435,7 +613,7 @@ class Parser {
         if (match(NIL))
             return new Expr.Literal(null);
         if (match(NUMBER, STRING)) {
-            return new Expr.Literal(previous().literal);
+            return new Expr.Literal(literal(current - 1));
         }
 
         if (match(THIS))
@@ -448,55 +626,104 @@ class Parser {
             consume(RPAREN, "Expect ')' after expression.");
             return new Expr.Grouping(expr);
         }
+        if (match(LBRACKET)) { // 리스트 리터럴
+            Token bracket = previous();
+            List<Expr> elements = new ArrayList<>();
+            if (!check(RBRACKET)) {
+                do {
+                    elements.add(expression());
+                } while (match(COMMA));
+            }
+            consume(RBRACKET, "Expect ']' after list elements.");
+            return new Expr.ListLiteral(bracket, elements);
+        }
 
         throw error(peek(), "Expect expression.");
     }
 
-    private boolean match(TokenType... types) {
-        for (TokenType type : types) {
-            if (check(type)) {
-                advance();
-                return true;
-            }
+    // 가변 인자 배열을 만들지 않도록 한 개, 두 개짜리만 둔다.
+    private boolean match(TokenType type) {
+        if (check(type)) {
+            advance();
+            return true;
         }
 
         return false;
     }
 
-    private Token consume(TokenType type, String message) {
-        if (check(type))
-            return advance();
+    private boolean match(TokenType first, TokenType second) {
+        return match(first) || match(second);
+    }
+
+    // 구두점처럼 AST 에 넣지 않는 토큰은 Token 을 만들지 않고 넘어간다.
+    private void consume(TokenType type, String message) {
+        if (check(type)) {
+            advance();
+            return;
+        }
 
         throw error(peek(), message);
     }
 
+    // AST 에 넣을 토큰을 소비하고 돌려준다.
+    private Token consumeToken(TokenType type, String message) {
+        consume(type, message);
+        return previous();
+    }
+
     // token 을 소비하지 않고 현재 토큰 검사
     private boolean check(TokenType type) { // token 을 소비하지 않는다.
         if (isAtEnd())
             return false;
-        return peek().type == type;
+        return type(current) == type;
     }
 
-    // 현재 위치에서 하나 앞의 토큰 얻기
-    private Token advance() {
+    // 현재 토큰을 소비한다.
+    private void advance() {
         if (!isAtEnd())
             current++;
-        return previous();
     }
 
     // 소스의 끝에 도달했는지 여부
     private boolean isAtEnd() {
-        return peek().type == EOF;
+        return type(current) == EOF;
     }
 
     // 현재 토큰
     private Token peek() {
-        return tokens.get(current);
+        return token(current);
     }
 
     // 현재 위치에서 1개 뒤 토큰 얻기
     private Token previous() {
-        return tokens.get(current-1);
+        return token(current-1);
+    }
+
+    // 아래 메서드는 index 가 EOF 를 넘어가면 EOF 토큰을 본다.
+    // 패킹된 토큰은 타입과 리터럴을 배열에서 바로 읽고, Token 은 AST 에 넣을 때만 만든다.
+    private TokenType type(int index) {
+        if (packed != null)
+            return packed.type(Math.min(index, packed.size() - 1));
+        return token(index).type;
+    }
+
+    private Object literal(int index) {
+        if (packed != null)
+            return packed.literal(Math.min(index, packed.size() - 1));
+        return token(index).literal;
+    }
+
+    // 스캐너에서 읽을 때는 필요한 만큼 더 읽는다.
+    private Token token(int index) {
+        if (packed != null)
+            return packed.token(Math.min(index, packed.size() - 1));
+
+        while (index >= tokens.size()) {
+            if (!tokens.isEmpty() && tokens.get(tokens.size() - 1).type == EOF)
+                return tokens.get(tokens.size() - 1);
+            tokens.add(scanner.nextToken());
+        }
+        return tokens.get(index);
     }
 
     private ParseError error(Token token, String message) {
@@ -508,16 +735,17 @@ class Parser {
         advance();
 
         while(!isAtEnd()) {
-            if (previous().type == SEMICOLON)
+            if (type(current - 1) == SEMICOLON)
                 return;
 
-            switch (peek().type) {
+            switch (type(current)) {
                 case CLASS:
                 case FUN:
                 case VAR:
                 case FOR:
                 case IF:
                 case WHILE:
+                case YIELD:
                 case PRINT:
                 case RETURN:
                     return;
@@ -1,8 +1,10 @@
 package org.sealang.sinterp;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.Stack;
 
 /*
@@ -22,6 +24,12 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     // scopes 의 key 는 변수명, value 는 변수의 initializer 의 resolve 가 완료되었는지 여부를 나타낸다.
     private final Stack<Map<String, Boolean>> scopes = new Stack<>();
     private FunctionType currentFunction = FunctionType.NONE;
+    // 현재 함수가 제너레이터인지. 제너레이터는 값을 return 할 수 없다.
+    private boolean inGenerator = false;
+    // 현재 함수 본문이 시작되는 스코프의 인덱스. 이보다 바깥 스코프의 변수를 참조하면 캡처된 것이다.
+    private int functionScope = 0;
+    // 클로저에 캡처된 지역 변수 이름. 호출이 이 변수들을 바꿀 수 있으므로 루프 최적화에서 사용한다.
+    private final Set<String> capturedLocals = new HashSet<>();
 
     Resolver(Interpreter interpreter) {
         this.interpreter = interpreter;
@@ -69,6 +77,19 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitForInStmt(Stmt.ForIn stmt) {
+        resolve(stmt.iterable);
+
+        // 루프 변수는 반복마다 새로 만들어지는 스코프에 있다.
+        beginScope();
+        declare(stmt.name);
+        define(stmt.name);
+        resolve(stmt.body);
+        endScope();
+        return null;
+    }
+
     @Override
     public Void visitFunctionStmt(Stmt.Function stmt) {
         declare(stmt.name); // 함수 이름을 현재 scope 에 등록
@@ -79,6 +100,13 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitHoistedWhileStmt(Stmt.HoistedWhile stmt) {
+        resolve(stmt.condition);
+        resolve(stmt.body);
+        return null;
+    }
+
     @Override
     public Void visitIfStmt(Stmt.If stmt) {
         resolve(stmt.condition);
@@ -100,6 +128,8 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
             SInterp.error(stmt.keyword, "Can't return from top-level code.");
         }
         if (stmt.value != null) {
+            if (inGenerator)
+                SInterp.error(stmt.keyword, "Can't return a value from a generator.");
             resolve(stmt.value);
         }
 
@@ -123,6 +153,15 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitYieldStmt(Stmt.Yield stmt) {
+        if (currentFunction == FunctionType.NONE)
+            SInterp.error(stmt.keyword, "Can't yield from top-level code.");
+        if (stmt.value != null)
+            resolve(stmt.value);
+        return null;
+    }
+
     @Override
     public Void visitAssignExpr(Expr.Assign expr) {
         resolve(expr.value);
@@ -148,6 +187,41 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitCompareConstExpr(Expr.CompareConst expr) {
+        resolveLocal(expr, expr.name);
+        return null;
+    }
+
+    @Override
+    public Void visitCompoundAssignExpr(Expr.CompoundAssign expr) {
+        resolve(expr.value);
+        resolveLocal(expr, expr.name);
+        return null;
+    }
+
+    @Override
+    public Void visitCompoundSetExpr(Expr.CompoundSet expr) {
+        resolve(expr.value);
+        resolve(expr.object);
+        return null;
+    }
+
+    @Override
+    public Void visitCompoundIndexSetExpr(Expr.CompoundIndexSet expr) {
+        resolve(expr.object);
+        resolve(expr.index);
+        resolve(expr.value);
+        return null;
+    }
+
+    @Override
+    public Void visitFieldAddAssignExpr(Expr.FieldAddAssign expr) {
+        resolve(expr.value);
+        resolve(expr.object);
+        return null;
+    }
+
     @Override
     public Void visitGetExpr(Expr.Get expr) {
         resolve(expr.object);
@@ -160,6 +234,41 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    @Override
+    public Void visitHoistedExpr(Expr.Hoisted expr) {
+        resolve(expr.expression);
+        return null;
+    }
+
+    @Override
+    public Void visitIncrementExpr(Expr.Increment expr) {
+        resolveLocal(expr, expr.name);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexExpr(Expr.Index expr) {
+        resolve(expr.object);
+        resolve(expr.index);
+        return null;
+    }
+
+    @Override
+    public Void visitIndexSetExpr(Expr.IndexSet expr) {
+        resolve(expr.object);
+        resolve(expr.index);
+        resolve(expr.value);
+        return null;
+    }
+
+    @Override
+    public Void visitListLiteralExpr(Expr.ListLiteral expr) {
+        for (Expr element : expr.elements) {
+            resolve(element);
+        }
+        return null;
+    }
+
     @Override
     public Void visitLiteralExpr(Expr.Literal expr) {
         return null;
@@ -210,6 +319,10 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         return null;
     }
 
+    boolean isCaptured(String name) {
+        return capturedLocals.contains(name);
+    }
+
     private void resolve(Stmt stmt) {
         stmt.accept(this);
     }
@@ -218,18 +331,42 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
         expr.accept(this);
     }
 
+    // 처음 호출될 때 파싱한 최상위 함수나 메서드의 본문을 리졸브한다.
+    // 최상위에서 리졸브했을 때와 같은 스코프를 만든다. 메서드는 this 스코프 안에 있다.
+    void resolveBody(Stmt.Function function, List<Stmt> body, boolean method) {
+        if (method) {
+            beginScope();
+            scopes.peek().put("this", true);
+        }
+        resolveFunction(function, body, method ? FunctionType.METHOD : FunctionType.FUNCTION);
+        if (method)
+            endScope();
+    }
+
     private void resolveFunction(Stmt.Function function, FunctionType type) {
+        // 파싱을 미룬 본문은 처음 호출될 때 리졸브한다.
+        resolveFunction(function, function.body instanceof LazyBody ? null : function.body, type);
+    }
+
+    private void resolveFunction(Stmt.Function function, List<Stmt> body, FunctionType type) {
         FunctionType enclosingFunction = currentFunction; // 둘러싸고 있는 함수 임시 저장
+        int enclosingScope = functionScope;
+        boolean enclosingGenerator = inGenerator;
         currentFunction = type;
+        inGenerator = function.generator;
 
         beginScope();
+        functionScope = scopes.size() - 1;
         for (Token param : function.params) {
             declare(param);
             define(param);
         }
-        resolve(function.body);
+        if (body != null)
+            resolve(body);
         endScope();
         currentFunction = enclosingFunction;
+        functionScope = enclosingScope;
+        inGenerator = enclosingGenerator;
     }
 
     private void beginScope() {
@@ -264,6 +401,8 @@ class Resolver implements Expr.Visitor<Void>, Stmt.Visitor<Void> {
     private void resolveLocal(Expr expr, Token name) {
         for (int i = scopes.size() - 1; i >= 0; i--) {
             if (scopes.get(i).containsKey(name.lexeme)) {
+                if (i < functionScope)
+                    capturedLocals.add(name.lexeme);
                 interpreter.resolve(expr, scopes.size() - 1 - i);
                 return;
             }
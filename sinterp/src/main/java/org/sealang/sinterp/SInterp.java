@@ -3,9 +3,12 @@ package org.sealang.sinterp;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.Reader;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Collections;
 import java.util.List;
 
 public class SInterp {
@@ -14,6 +17,41 @@ public class SInterp {
     // true 이면 코드를 더이상 실행하지 않도록 한다.
     private static boolean hadError = false;
     private static boolean hadRuntimeError = false;
+    // REPL 모드. 이후 입력에서 전역이 재정의될 수 있으므로 전체 프로그램 분석이 필요한 최적화는 끈다.
+    private static boolean interactive = false;
+
+    // 최적화 옵션. -Dsinterp.inline=false 처럼 시스템 프로퍼티로 끌 수 있다.
+    private static final boolean inlineEnabled = option("inline", true);
+    private static final boolean hoistEnabled = option("hoist", true);
+    private static final boolean fuseEnabled = option("fuse", true);
+    private static final boolean fuseReport = option("fuseReport", false);
+    // 파일을 매핑해서 최상위 선언 단위로 읽으면서 바로 실행한다. -Dsinterp.stream=true
+    private static final boolean streamEnabled = option("stream", false);
+    // 큰 파일을 최상위 선언 단위로 나눠 병렬로 스캔/파싱한다.
+    private static final boolean parallelParseEnabled = option("parallelParse", true);
+
+    // 최상위 함수 본문을 모두 바로 파싱한다. 끄면 본문은 처음 호출될 때 파싱된다. (LazyBody)
+    private static final boolean strict = option("strict", false);
+
+    // 최적화까지 끝난 AST 를 스크립트 옆에 저장해 두고 다시 실행할 때 읽는다. (AstCache)
+    // 캐시된 AST 로는 합친 지점을 셀 수 없으므로 fuseReport 를 켜면 쓰지 않는다.
+    private static final boolean astCacheEnabled = option("astCache", true) && !fuseReport;
+
+    // 최적화까지 끝난 AST 를 평평한 배열(FlatAst)로 바꿔 FlatWalker 로 실행한다.
+    private static final boolean flatEnabled = option("flat", false);
+    // FlatAst 를 다시 트리로 되돌려서 원래 트리와 같은지 확인한다.
+    private static final boolean flatCheck = option("flatCheck", false);
+
+    // 병렬 파싱 중인 작업 스레드에서는 구문 에러를 출력하지 않고 여기에 표시만 한다.
+    private static final ThreadLocal<boolean[]> silentErrors = new ThreadLocal<>();
+
+    // 실행 중인 스크립트 이름. 최적화 리포트에 사용
+    private static String scriptName = "<prompt>";
+    // 실행 중인 스크립트의 InstructionFuser. 나중에 로드되는 함수 본문도 이것으로 합쳐서
+    // 리포트에 함께 센다.
+    private static InstructionFuser scriptFuser = null;
+    // 실행 중인 스크립트의 인라인 후보. 나중에 로드되는 함수 본문에서도 인라인한다.
+    private static Inliner scriptInliner = null;
 
     public static void main(String[] args) throws IOException {
         if (args.length < 1) {
@@ -28,8 +66,16 @@ public class SInterp {
 
     // 파일로 실행할 때
     private static void runFile(String path) throws IOException {
-        byte[] bytes = Files.readAllBytes(Paths.get(path));
-        run(new String(bytes, Charset.defaultCharset()));
+        scriptName = path;
+        if (streamEnabled) {
+            runStream(path);
+        } else {
+            Path file = Paths.get(path);
+            byte[] bytes = Files.readAllBytes(file);
+            AstCache cache = astCacheEnabled ? new AstCache(file, bytes, cacheOptions()) : null;
+            run(new String(bytes, Charset.defaultCharset()), cache);
+        }
+        FileNatives.closeAll();
 
         // 종료할 때 에러 코드를 명시
         if (hadError)
@@ -42,52 +88,189 @@ public class SInterp {
     private static void runPrompt() throws IOException {
         InputStreamReader input = new InputStreamReader(System.in);
         BufferedReader reader = new BufferedReader(input);
+        interactive = true;
 
         for (;;) {
             System.out.print("> ");
             String line = reader.readLine();
             if (line == null)
                 break;
-            run(line);
+            run(line, null);
             hadError = false; // 커맨드라인 모드에서는 한줄마다 에러 리셋
         }
+        FileNatives.closeAll();
     }
 
-    private static void run(String source) {
-        // Scanner 를 통해 한줄에 대한 토큰 뭉치를 생성
-        Scanner scanner = new Scanner(source);
-        List<Token> tokens = scanner.scanTokens();
+    // cache 가 있으면 캐시된 AST 를 먼저 찾고, 없으면 만든 AST 를 저장한다.
+    private static void run(String source, AstCache cache) {
+        char[] chars = source.toCharArray();
+        InstructionFuser fuser = fuseEnabled ? new InstructionFuser(interpreter) : null;
+        scriptFuser = fuser;
+        scriptInliner = inlineEnabled && !interactive ? new Inliner() : null;
+        if (cache != null) {
+            List<Stmt> cached = cache.load(interpreter, chars);
+            if (cached != null) {
+                if (scriptInliner != null)
+                    scriptInliner.collect(cached);
+                interpret(cached);
+                return;
+            }
+        }
 
-        // 앞서 만든 토큰을 파싱후 AST 구축
-        Parser parser = new Parser(tokens);
-        //Expr expression = parser.parse();
-        List<Stmt> statements = parser.parse();
+        List<Stmt> statements = null;
+        if (parallelParseEnabled && !interactive)
+            statements = ParallelParser.parse(chars, !strict);
+
+        // 병렬로 파싱하지 않았으면 처음부터 순서대로 한다.
+        if (statements == null) {
+            // Scanner 를 통해 한줄에 대한 토큰 뭉치를 생성
+            Scanner scanner = new Scanner(chars, 0, chars.length, 1);
+            TokenStream tokens = scanner.scanPacked();
+
+            // 앞서 만든 토큰을 파싱후 AST 구축
+            Parser parser = new Parser(tokens, !strict);
+            //Expr expression = parser.parse();
+            statements = parser.parse();
+        }
 
         // 구문 에러 발생 시 멈춘다.
         if (hadError)
             return;
 
+        // 작은 전역 함수 호출을 본문으로 치환
+        if (scriptInliner != null)
+            statements = scriptInliner.inline(statements);
+
+        statements = prepare(statements, fuser);
+        if (statements != null) {
+            if (cache != null)
+                cache.store(interpreter, statements);
+            interpret(statements);
+        }
+        if (fuser != null && fuseReport)
+            System.err.println("[fuse] " + scriptName + ": " + fuser.report());
+    }
+
+    // 캐시된 AST 를 만든 옵션. 옵션이 다르면 캐시를 쓰지 않는다.
+    private static int cacheOptions() {
+        return (inlineEnabled ? 1 : 0) | (hoistEnabled ? 2 : 0) |
+                (fuseEnabled ? 4 : 0) | (strict ? 8 : 0);
+    }
+
+    // 스트리밍 실행. 소스, 토큰, AST 를 한꺼번에 들고 있지 않고 최상위 선언을 하나씩
+    // 파싱해서 바로 실행한다. 뒤쪽 선언을 보기 전에 실행하므로 구문 에러가 나기 전의 선언은
+    // 이미 실행된 상태이고, 프로그램 전체를 봐야 하는 인라이닝은 하지 않는다.
+    private static void runStream(String path) throws IOException {
+        InstructionFuser fuser = fuseEnabled ? new InstructionFuser(interpreter) : null;
+        scriptFuser = fuser;
+        scriptInliner = null;
+        try (Reader reader = new MappedSourceReader(Paths.get(path), Charset.defaultCharset())) {
+            Parser parser = new Parser(new Scanner(reader));
+            while (parser.hasNext() && !hadError && !hadRuntimeError) {
+                Stmt statement = parser.parseNext();
+                if (hadError)
+                    break;
+                execute(Collections.singletonList(statement), fuser);
+            }
+        }
+        if (fuser != null && fuseReport)
+            System.err.println("[fuse] " + scriptName + ": " + fuser.report());
+    }
+
+    // 리졸브, 최적화 패스를 거쳐 실행한다.
+    private static void execute(List<Stmt> statements, InstructionFuser fuser) {
+        statements = prepare(statements, fuser);
+        if (statements != null)
+            interpret(statements);
+    }
+
+    // 인터프리터에서 AST 를 실행
+    private static void interpret(List<Stmt> statements) {
+        if (!flatEnabled) {
+            interpreter.interpret(statements);
+            return;
+        }
+
+        FlatAst ast = FlatAst.encode(statements, interpreter);
+        if (flatCheck && !IncrementalParser.sameTree(statements, ast.decode(interpreter)))
+            throw new IllegalStateException("Flat AST does not decode to the original tree.");
+        new FlatWalker(ast, interpreter, interpreter.globals).interpret();
+    }
+
+    // 리졸브, 최적화 패스를 거친 문장들. 리졸브 에러가 나면 null
+    private static List<Stmt> prepare(List<Stmt> statements, InstructionFuser fuser) {
         // 변수 리졸브
         Resolver resolver = new Resolver(interpreter);
         resolver.resolve(statements);
 
         // 레졸루션 에러 발생 시 멈춘다.
         if (hadError)
-            return;
+            return null;
 
-        // 인터프리터에서 AST 를 실행
-        interpreter.interpret(statements);
+        // 루프 불변식 끌어올리기. 리졸버의 결과를 사용하므로 리졸브 뒤에 실행한다.
+        if (hoistEnabled)
+            statements = new LoopOptimizer(interpreter, resolver).optimize(statements);
+
+        // 자주 쓰이는 패턴을 합쳐진 노드로 치환
+        if (fuser != null)
+            statements = fuser.fuse(statements);
+        return statements;
     }
     
+    // 처음 호출된 함수의 미뤄 둔 본문을 파싱하고, 최상위에서와 같은 인라인, 리졸브, 최적화 패스를 거친다.
+    // 에러가 나면 출력하고 null
+    static List<Stmt> prepareBody(Interpreter interpreter, Stmt.Function function, LazyBody lazy) {
+        boolean enclosingError = hadError;
+        hadError = false;
+        List<Stmt> body = lazy.parse();
+        if (!hadError && scriptInliner != null)
+            body = scriptInliner.inlineBody(function, lazy, body);
+        Resolver resolver = new Resolver(interpreter);
+        if (!hadError)
+            resolver.resolveBody(function, body, lazy.method);
+        boolean failed = hadError;
+        hadError = enclosingError || failed;
+        if (failed)
+            return null;
+
+        if (hoistEnabled)
+            body = new LoopOptimizer(interpreter, resolver).optimize(body);
+        if (scriptFuser != null)
+            body = scriptFuser.fuse(body);
+        return body;
+    }
+
+    static boolean option(String name, boolean defaultValue) {
+        String value = System.getProperty("sinterp." + name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
     static void error(int line, String message) {
         report(line, "", message);
     }
     
     private static void report(int line, String where, String message) {
+        boolean[] silent = silentErrors.get();
+        if (silent != null) {
+            silent[0] = true;
+            return;
+        }
         System.out.println("[line " + line + "] Error " + where + ": " + message);
         hadError = true;
     }
 
+    // action 을 실행하는 동안 이 스레드의 구문 에러를 출력하지 않는다. 에러가 있었으면 true
+    static boolean hadSilentError(Runnable action) {
+        boolean[] silent = new boolean[1];
+        silentErrors.set(silent);
+        try {
+            action.run();
+        } finally {
+            silentErrors.remove();
+        }
+        return silent[0];
+    }
+
     static void error(Token token, String message) {
         if (token.type == TokenType.EOF) {
             report(token.line, " at end", message);
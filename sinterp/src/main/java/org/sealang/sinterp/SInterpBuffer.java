@@ -0,0 +1,97 @@
+package org.sealang.sinterp;
+
+/*
+* 내장 버퍼 타입.
+* 힙 밖에 할당하거나 파일을 매핑한 바이트 영역(BufferStorage)을 감싸고,
+* 스크립트에서 오는 오프셋의 범위와 해제 여부를 검사한다.
+*
+*  byte   : 1 바이트, 0 ~ 255 로 읽는다.
+*  int    : 4 바이트, 부호 있는 32비트 정수
+*  double : 8 바이트
+* */
+public class SInterpBuffer {
+    private final BufferStorage storage;
+    private volatile boolean freed = false;
+
+    SInterpBuffer(BufferStorage storage) {
+        this.storage = storage;
+    }
+
+    long size() {
+        checkLive();
+        return storage.size();
+    }
+
+    long getByte(Object offset) {
+        return storage.getByte(offset(offset, 1)) & 0xFF;
+    }
+
+    void setByte(Object offset, Object value) {
+        long v = integer(value);
+        if (v < -128 || v > 255)
+            throw new NativeError("Byte value out of range.");
+        storage.setByte(writableOffset(offset, 1), (byte) v);
+    }
+
+    long getInt(Object offset) {
+        return storage.getInt(offset(offset, 4));
+    }
+
+    void setInt(Object offset, Object value) {
+        long v = integer(value);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE)
+            throw new NativeError("Int value out of range.");
+        storage.setInt(writableOffset(offset, 4), (int) v);
+    }
+
+    double getDouble(Object offset) {
+        return storage.getDouble(offset(offset, 8));
+    }
+
+    void setDouble(Object offset, Object value) {
+        if (!NumberOps.isNumber(value))
+            throw new NativeError("Value must be a number.");
+        storage.setDouble(writableOffset(offset, 8), NumberOps.toDouble(value));
+    }
+
+    void free() {
+        checkLive();
+        freed = true;
+        storage.free();
+    }
+
+    private void checkLive() {
+        if (freed)
+            throw new NativeError("Buffer has been freed.");
+    }
+
+    // width 바이트를 읽을 수 있는 오프셋인지 검사한다.
+    private long offset(Object offset, int width) {
+        checkLive();
+        long i = integer(offset);
+        if (i < 0 || i > storage.size() - width)
+            throw new NativeError("Buffer offset out of range.");
+        return i;
+    }
+
+    private long writableOffset(Object offset, int width) {
+        long i = offset(offset, width);
+        if (storage.isReadOnly())
+            throw new NativeError("Buffer is read-only.");
+        return i;
+    }
+
+    // 정수 값을 가진 실수도 허용한다. (buffer(size) 의 크기 검사도 이것을 쓴다.)
+    static long integer(Object value) {
+        if (value instanceof Long)
+            return (long) value;
+        if (value instanceof Double && (double) value == Math.rint((double) value))
+            return (long) (double) value;
+        throw new NativeError("Buffer sizes, offsets and integer values must be integers.");
+    }
+
+    @Override
+    public String toString() {
+        return freed ? "<buffer freed>" : "<buffer " + storage.size() + " bytes>";
+    }
+}
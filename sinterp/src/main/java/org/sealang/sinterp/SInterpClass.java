@@ -6,14 +6,14 @@ import java.util.Map;
 // class
 public class SInterpClass implements SInterpCallable {
     final String name;
-    private final Map<String, SInterpFunction> methods;
+    private final Map<Symbol, SInterpFunction> methods;
 
-    SInterpClass(String name, Map<String, SInterpFunction> methods) {
+    SInterpClass(String name, Map<Symbol, SInterpFunction> methods) {
         this.name = name;
         this.methods = methods;
     }
 
-    SInterpFunction findMethod(String name) {
+    SInterpFunction findMethod(Symbol name) {
         if (methods.containsKey(name)) {
             return methods.get(name);
         }
@@ -0,0 +1,108 @@
+package org.sealang.sinterp;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+* 내장 파일 타입.
+* FileChannel 위에 버퍼를 둔 Reader/Writer 로 필요한 만큼만 읽고 쓴다. 인코딩은 UTF-8.
+*  "r" : 읽기
+*  "w" : 쓰기 (파일을 새로 만들거나 비운다.)
+*  "a" : 이어 쓰기
+* */
+public class SInterpFile {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String path;
+    private final BufferedReader reader;
+    private final BufferedWriter writer;
+    private boolean closed = false;
+
+    private SInterpFile(String path, BufferedReader reader, BufferedWriter writer) {
+        this.path = path;
+        this.reader = reader;
+        this.writer = writer;
+    }
+
+    static SInterpFile open(String path, String mode) throws IOException {
+        switch (mode) {
+            case "r": {
+                FileChannel channel = FileChannel.open(Path.of(path), StandardOpenOption.READ);
+                return new SInterpFile(path, new BufferedReader(
+                        Channels.newReader(channel, StandardCharsets.UTF_8), BUFFER_SIZE), null);
+            }
+            case "w":
+            case "a": {
+                FileChannel channel = FileChannel.open(Path.of(path),
+                        StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                        mode.equals("w") ? StandardOpenOption.TRUNCATE_EXISTING :
+                                StandardOpenOption.APPEND);
+                return new SInterpFile(path, null, new BufferedWriter(
+                        Channels.newWriter(channel, StandardCharsets.UTF_8), BUFFER_SIZE));
+            }
+            default:
+                throw new NativeError("File mode must be \"r\", \"w\" or \"a\".");
+        }
+    }
+
+    // 줄바꿈을 뺀 다음 줄. 파일 끝이면 null
+    String readLine() throws IOException {
+        return reader().readLine();
+    }
+
+    // 최대 count 글자. 파일 끝이면 null
+    // count 만큼 미리 할당하지 않고, 읽은 글자 수에 맞춰 늘린다.
+    String readChunk(int count) throws IOException {
+        BufferedReader reader = reader();
+        char[] chars = new char[Math.min(count, BUFFER_SIZE)];
+        StringBuilder text = new StringBuilder(chars.length);
+        while (text.length() < count) {
+            int read = reader.read(chars, 0, Math.min(chars.length, count - text.length()));
+            if (read < 0)
+                break;
+            text.append(chars, 0, read);
+        }
+        if (text.length() == 0 && count > 0)
+            return null;
+        return text.toString();
+    }
+
+    void write(String text) throws IOException {
+        if (closed)
+            throw new NativeError("File is closed.");
+        if (writer == null)
+            throw new NativeError("File is not open for writing.");
+        writer.write(text);
+    }
+
+    // 이미 닫힌 파일이면 false
+    boolean close() throws IOException {
+        if (closed)
+            return false;
+        closed = true;
+        if (reader != null)
+            reader.close();
+        if (writer != null)
+            writer.close(); // 남은 버퍼를 쓰고 닫는다.
+        return true;
+    }
+
+    private BufferedReader reader() {
+        if (closed)
+            throw new NativeError("File is closed.");
+        if (reader == null)
+            throw new NativeError("File is not open for reading.");
+        return reader;
+    }
+
+    @Override
+    public String toString() {
+        return "<file " + path + ">";
+    }
+}
@@ -3,6 +3,8 @@ package org.sealang.sinterp;
 import java.util.List;
 
 public class SInterpFunction implements SInterpCallable {
+    private static final Symbol THIS = Symbol.intern("this");
+
     private final Stmt.Function declaration;
     private final Environment closure;
 
@@ -14,7 +16,7 @@ public class SInterpFunction implements SInterpCallable {
 
     SInterpFunction bind(SInterpInstance instance) {
         Environment environment = new Environment(closure);
-        environment.define("this", instance);
+        environment.define(THIS, instance);
         return new SInterpFunction(declaration, environment);
     }
 
@@ -33,12 +35,21 @@ public class SInterpFunction implements SInterpCallable {
                        List<Object> arguments) {
         Environment environment = new Environment(closure);
         for (int i = 0; i < declaration.params.size(); i++) {
-            environment.define(declaration.params.get(i).lexeme,
+            environment.define(declaration.params.get(i).symbol,
                     arguments.get(i));// 심볼 테이블에 파라미터 등록
         }
 
+        // 제너레이터 함수는 본문을 실행하지 않고 제너레이터를 돌려준다.
+        if (declaration.generator)
+            return new SInterpGenerator(interpreter, declaration.body, environment,
+                    declaration.name.lexeme);
+
+        List<Stmt> body = declaration.body;
+        if (body instanceof LazyBody)
+            body = ((LazyBody) body).load(interpreter, declaration);
+
         try {
-            interpreter.executeBlock(declaration.body, environment);
+            interpreter.executeBlock(body, environment);
         } catch (Return returnValue) {
             return returnValue.value;
         }
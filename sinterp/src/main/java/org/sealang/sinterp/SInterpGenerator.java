@@ -0,0 +1,158 @@
+package org.sealang.sinterp;
+
+import java.lang.ref.Cleaner;
+import java.util.List;
+import java.util.concurrent.SynchronousQueue;
+
+/*
+* 제너레이터 객체. yield 가 있는 함수를 호출하면 본문을 실행하지 않고 이 객체를 돌려준다.
+*
+* 인터프리터가 트리를 재귀로 순회하므로 실행 중인 본문을 중간에 멈추려면 자바 스택이
+* 통째로 필요하다. 그래서 본문은 전용 스레드에서 전용 Interpreter 로 실행하고,
+* 소비하는 쪽과 SynchronousQueue 로 값을 주고받는다. 한쪽이 실행하는 동안 다른 쪽은
+* 항상 기다리므로 두 스레드가 동시에 스크립트 상태를 건드리지 않는다.
+*
+* 스레드는 첫 값을 요청할 때 시작한다. 끝까지 소비되지 않은 제너레이터는
+* 객체가 GC 될 때 Cleaner 가 스레드를 깨워 종료시킨다.
+* */
+public class SInterpGenerator {
+    // next 가 돌려주는 끝 표시
+    static final Object DONE = new Object();
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final Channel channel;
+
+    SInterpGenerator(Interpreter parent, List<Stmt> body, Environment environment, String name) {
+        this.channel = new Channel(parent, body, environment, name);
+        CLEANER.register(this, channel::abandon);
+    }
+
+    // 다음 값. 본문이 끝났으면 DONE. 본문의 에러는 호출한 스레드에서 다시 던진다.
+    Object next(Token token) {
+        return channel.next(token);
+    }
+
+    @Override
+    public String toString() {
+        return "<generator " + channel.name + ">";
+    }
+
+    // 제너레이터 스레드와 주고받는 상태. 스레드가 SInterpGenerator 를 참조하지 않도록 따로 둔다.
+    static class Channel implements Runnable {
+        private final Interpreter parent;
+        private final List<Stmt> body;
+        private final Environment environment;
+        private final String name;
+
+        private final SynchronousQueue<Object> resume = new SynchronousQueue<>();
+        private final SynchronousQueue<Message> results = new SynchronousQueue<>();
+        private volatile Thread thread;
+        private volatile boolean running = false;
+        private boolean done = false;
+
+        Channel(Interpreter parent, List<Stmt> body, Environment environment, String name) {
+            this.parent = parent;
+            this.body = body;
+            this.environment = environment;
+            this.name = name;
+        }
+
+        Object next(Token token) {
+            if (done)
+                return DONE;
+            if (running)
+                throw new RuntimeError(token, "Generator is already running.");
+
+            running = true;
+            Message message;
+            try {
+                if (thread == null) {
+                    thread = new Thread(this, "sinterp-generator-" + name);
+                    thread.setDaemon(true);
+                    thread.start();
+                } else {
+                    resume.put(Boolean.TRUE);
+                }
+                message = results.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeError(token, "Interrupted while waiting for generator.");
+            } finally {
+                running = false;
+            }
+
+            if (message.kind == Message.VALUE)
+                return message.value;
+
+            done = true;
+            if (message.kind == Message.ERROR) {
+                if (message.error instanceof RuntimeException)
+                    throw (RuntimeException) message.error;
+                throw (Error) message.error;
+            }
+            return DONE;
+        }
+
+        // 제너레이터 스레드에서 yield 할 때 호출된다. 다음 값을 요청받을 때까지 멈춘다.
+        void yield(Object value) {
+            try {
+                results.put(new Message(Message.VALUE, value, null));
+                resume.take();
+            } catch (InterruptedException e) {
+                throw new Abandoned();
+            }
+        }
+
+        @Override
+        public void run() {
+            Interpreter worker = new Interpreter(parent);
+            worker.generator = this;
+            Message message;
+            try {
+                worker.executeBlock(body, environment);
+                message = new Message(Message.END, null, null);
+            } catch (Return returnValue) {
+                message = new Message(Message.END, null, null);
+            } catch (Abandoned abandoned) {
+                return;
+            } catch (RuntimeException | Error error) {
+                message = new Message(Message.ERROR, null, error);
+            }
+
+            try {
+                results.put(message);
+            } catch (InterruptedException e) {
+                // 소비하는 쪽이 없어졌다.
+            }
+        }
+
+        void abandon() {
+            if (thread != null)
+                thread.interrupt();
+        }
+    }
+
+    private static class Message {
+        static final int VALUE = 0;
+        static final int END = 1;
+        static final int ERROR = 2;
+
+        final int kind;
+        final Object value;
+        final Throwable error;
+
+        Message(int kind, Object value, Throwable error) {
+            this.kind = kind;
+            this.value = value;
+            this.error = error;
+        }
+    }
+
+    // 버려진 제너레이터의 본문을 풀어낼 때 쓴다. 인터프리터의 어떤 catch 에도 잡히지 않는다.
+    private static class Abandoned extends RuntimeException {
+        Abandoned() {
+            super(null, null, false, false);
+        }
+    }
+}
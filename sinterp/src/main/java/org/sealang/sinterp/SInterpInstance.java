@@ -7,18 +7,18 @@ import java.util.Map;
 // class field 에 해당하는 정보들은 이곳에 저장한다.
 public class SInterpInstance {
     private SInterpClass klass;
-    private final Map<String, Object> fields = new HashMap<>();
+    private final Map<Symbol, Object> fields = new HashMap<>();
 
     SInterpInstance(SInterpClass klass) {
         this.klass = klass;
     }
 
     Object get(Token name) {
-        if (fields.containsKey(name.lexeme)) {
-            return fields.get(name.lexeme);
+        if (fields.containsKey(name.symbol)) {
+            return fields.get(name.symbol);
         }
 
-        SInterpFunction method = klass.findMethod(name.lexeme);
+        SInterpFunction method = klass.findMethod(name.symbol);
         if (method != null)
             return method.bind(this);
 
@@ -27,7 +27,7 @@ public class SInterpInstance {
     }
 
     void set(Token name, Object value) {
-        fields.put(name.lexeme, value);
+        fields.put(name.symbol, value);
     }
 
     public String toString() {
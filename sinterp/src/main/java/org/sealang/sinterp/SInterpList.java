@@ -0,0 +1,197 @@
+package org.sealang.sinterp;
+
+import java.util.Arrays;
+
+/*
+* 내장 리스트 타입.
+* 원소의 종류에 따라 저장 배열을 특화한다.
+*  - 모든 원소가 정수      : long[]
+*  - 모든 원소가 실수      : double[]
+*  - 그 외               : Object[] (정수와 실수가 섞인 리스트도 정수를 Long 으로 유지한다.)
+* 한 번 넓어진 저장 방식은 다시 좁아지지 않는다. 단, fill 로 모든 원소를 같은 값으로 바꿀 때는
+* 그 값에 맞는 배열로 다시 만든다.
+* */
+public class SInterpList {
+    private static final int LONGS = 0;
+    private static final int DOUBLES = 1;
+    private static final int OBJECTS = 2;
+
+    // double 로 정확히 표현되는 정수의 범위
+    private static final long MAX_EXACT = 1L << 53;
+
+    private int kind = LONGS;
+    private long[] longs;
+    private double[] doubles;
+    private Object[] objects;
+    private int size = 0;
+
+    SInterpList(int capacity) {
+        longs = new long[Math.max(capacity, 4)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    Object get(int index) {
+        switch (kind) {
+            case LONGS:
+                return longs[index];
+            case DOUBLES:
+                return doubles[index];
+            default:
+                return objects[index];
+        }
+    }
+
+    void set(int index, Object value) {
+        if (kind == LONGS) {
+            if (value instanceof Long) {
+                longs[index] = (long)value;
+                return;
+            }
+            widen(value);
+        }
+
+        if (kind == DOUBLES) {
+            if (value instanceof Double) {
+                doubles[index] = (double)value;
+                return;
+            }
+            widenToObjects();
+        }
+
+        objects[index] = value;
+    }
+
+    // 저장 배열을 직접 다루는 내장 함수(NumericNatives)용.
+    // 해당 방식으로 저장 중이 아니면 null. 배열 길이는 size 보다 클 수 있다.
+    long[] longArray() {
+        return kind == LONGS ? longs : null;
+    }
+
+    double[] doubleArray() {
+        return kind == DOUBLES ? doubles : null;
+    }
+
+    // 가능하면 double[] 저장 방식으로 바꾼다. 바꿨거나 이미 double[] 이면 true
+    // 바꿀 수 없으면 저장 방식을 그대로 둔다.
+    // 정수 원소도 실수가 되므로, 곧 모든 원소를 실수 결과로 덮어쓸 때만 부른다. (scale, addInto)
+    boolean toDoubles() {
+        if (kind == LONGS && longsFitDouble())
+            longsToDoubles();
+        return kind == DOUBLES;
+    }
+
+    // 모든 원소를 value 로 바꾼다. 원소가 모두 같아지므로 value 의 종류에 맞는 저장 방식을 쓴다.
+    void fill(Object value) {
+        int capacity = Math.max(size, 4);
+        longs = null;
+        doubles = null;
+        objects = null;
+        if (value instanceof Long) {
+            longs = new long[capacity];
+            Arrays.fill(longs, 0, size, (long)value);
+            kind = LONGS;
+        } else if (value instanceof Double) {
+            doubles = new double[capacity];
+            Arrays.fill(doubles, 0, size, (double)value);
+            kind = DOUBLES;
+        } else {
+            objects = new Object[capacity];
+            Arrays.fill(objects, 0, size, value);
+            kind = OBJECTS;
+        }
+    }
+
+    void add(Object value) {
+        ensureCapacity(size + 1);
+        size++;
+        set(size - 1, value);
+    }
+
+    Object removeLast() {
+        Object value = get(size - 1);
+        size--;
+        if (kind == OBJECTS)
+            objects[size] = null; // GC 가 수거할 수 있도록
+        return value;
+    }
+
+    // long[] 에 value 를 넣을 수 없을 때 저장 방식을 넓힌다.
+    // 실수가 유일한 원소가 되는 경우에만 double[] 로, 정수와 섞이면 Object[] 로 바꾼다.
+    private void widen(Object value) {
+        if (value instanceof Double && size == 1) {
+            longsToDoubles();
+            return;
+        }
+
+        widenToObjects();
+    }
+
+    // long[] 의 모든 원소를 double 로 정확히 표현할 수 있는지
+    private boolean longsFitDouble() {
+        for (int i = 0; i < size; i++) {
+            if (longs[i] < -MAX_EXACT || longs[i] > MAX_EXACT)
+                return false;
+        }
+        return true;
+    }
+
+    private void longsToDoubles() {
+        doubles = new double[longs.length];
+        for (int i = 0; i < size; i++) {
+            doubles[i] = longs[i];
+        }
+        longs = null;
+        kind = DOUBLES;
+    }
+
+    private void widenToObjects() {
+        if (kind == LONGS) {
+            objects = new Object[longs.length];
+            for (int i = 0; i < size; i++) {
+                objects[i] = longs[i];
+            }
+            longs = null;
+        } else if (kind == DOUBLES) {
+            objects = new Object[doubles.length];
+            for (int i = 0; i < size; i++) {
+                objects[i] = doubles[i];
+            }
+            doubles = null;
+        }
+        kind = OBJECTS;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = kind == LONGS ? longs.length :
+                kind == DOUBLES ? doubles.length : objects.length;
+        if (capacity <= length)
+            return;
+
+        int newLength = Math.max(capacity, length * 2);
+        switch (kind) {
+            case LONGS:
+                longs = Arrays.copyOf(longs, newLength);
+                break;
+            case DOUBLES:
+                doubles = Arrays.copyOf(doubles, newLength);
+                break;
+            default:
+                objects = Arrays.copyOf(objects, newLength);
+                break;
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                builder.append(", ");
+            builder.append(Interpreter.stringify(get(i)));
+        }
+        return builder.append("]").toString();
+    }
+}
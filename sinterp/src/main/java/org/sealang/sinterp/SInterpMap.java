@@ -0,0 +1,173 @@
+package org.sealang.sinterp;
+
+/*
+* 내장 맵 타입.
+* 선형 탐사(linear probing) 방식의 open addressing 해시 테이블이다.
+* 키의 해시는 hashes[] 에 저장해 두고, 탐사할 때 해시가 같은 슬롯만 equals 로 비교한다.
+*
+* 키로 쓸 수 있는 값
+*  - 문자열, 불리언
+*  - 숫자 : 정수 값을 가진 실수는 정수로 바꿔 저장한다. (m[1] 과 m[1.0] 은 같은 키)
+*  - 인스턴스 : identity 로 비교한다.
+* */
+public class SInterpMap {
+    // 비어 있는 슬롯과 삭제된 슬롯의 표시. 살아 있는 키의 해시는 항상 양수이다.
+    private static final int EMPTY = 0;
+    private static final int DELETED = -1;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;
+    private int size = 0;
+    private int used = 0; // 살아 있는 슬롯 + 삭제된 슬롯
+
+    SInterpMap() {
+        allocate(8);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // 맵 키로 쓸 수 없는 값이면 null
+    static Object normalizeKey(Object key) {
+        if (key instanceof Double) {
+            double d = (double)key;
+            if (d == Math.rint(d) && d >= Long.MIN_VALUE && d < Long.MAX_VALUE)
+                return (long)d;
+            return key;
+        }
+        if (key instanceof Long || key instanceof String ||
+                key instanceof Boolean || key instanceof SInterpInstance)
+            return key;
+        return null;
+    }
+
+    // 아래 메서드들의 key 는 normalizeKey 를 거친 값이어야 한다.
+    Object get(Object key) {
+        int slot = find(key, hash(key));
+        return slot < 0 ? null : values[slot];
+    }
+
+    void put(Object key, Object value) {
+        int hash = hash(key);
+        int slot = find(key, hash);
+        if (slot >= 0) {
+            values[slot] = value;
+            return;
+        }
+
+        if ((used + 1) * 4 > hashes.length * 3)
+            resize();
+
+        int mask = hashes.length - 1;
+        int i = hash & mask;
+        while (hashes[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (hashes[i] == EMPTY)
+            used++;
+        hashes[i] = hash;
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    Object remove(Object key) {
+        int slot = find(key, hash(key));
+        if (slot < 0)
+            return null;
+
+        Object value = values[slot];
+        hashes[slot] = DELETED;
+        keys[slot] = null;
+        values[slot] = null;
+        size--;
+        return value;
+    }
+
+    SInterpList keys() {
+        SInterpList list = new SInterpList(size);
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] > 0)
+                list.add(keys[i]);
+        }
+        return list;
+    }
+
+    private int find(Object key, int hash) {
+        int mask = hashes.length - 1;
+        int i = hash & mask;
+        while (hashes[i] != EMPTY) {
+            if (hashes[i] == hash && sameKey(keys[i], key))
+                return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static boolean sameKey(Object a, Object b) {
+        if (a instanceof SInterpInstance)
+            return a == b;
+        return a.equals(b);
+    }
+
+    private static int hash(Object key) {
+        int h = key instanceof SInterpInstance ?
+                System.identityHashCode(key) : key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x9E3779B1; // 비슷한 해시가 인접한 슬롯에 몰리지 않도록 섞는다.
+        h &= Integer.MAX_VALUE;
+        return h == EMPTY ? 1 : h;
+    }
+
+    // 삭제된 슬롯을 정리하면서 다시 배치한다. 살아 있는 키가 많으면 크기를 늘린다.
+    private void resize() {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+
+        int capacity = oldHashes.length;
+        if (size * 2 >= capacity)
+            capacity *= 2;
+        allocate(capacity);
+
+        int mask = capacity - 1;
+        for (int j = 0; j < oldHashes.length; j++) {
+            if (oldHashes[j] <= 0)
+                continue;
+            int i = oldHashes[j] & mask;
+            while (hashes[i] != EMPTY) {
+                i = (i + 1) & mask;
+            }
+            hashes[i] = oldHashes[j];
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+        used = size;
+    }
+
+    private void allocate(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        hashes = new int[capacity];
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("{");
+        boolean first = true;
+        for (int i = 0; i < hashes.length; i++) {
+            if (hashes[i] <= 0)
+                continue;
+            if (!first)
+                builder.append(", ");
+            first = false;
+            Object key = keys[i];
+            builder.append(key instanceof String ? "\"" + key + "\"" : Interpreter.stringify(key))
+                    .append(": ")
+                    .append(Interpreter.stringify(values[i]));
+        }
+        return builder.append("}").toString();
+    }
+}
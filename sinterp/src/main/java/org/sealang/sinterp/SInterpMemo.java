@@ -0,0 +1,125 @@
+package org.sealang.sinterp;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+* memo(fn) 이 돌려주는 함수.
+* 인자 값을 키로 결과를 저장하고, 같은 인자로 다시 호출되면 fn 을 실행하지 않고 저장된 값을 돌려준다.
+* 저장하는 결과는 capacity 개까지이며, 넘치면 가장 오래 쓰이지 않은 결과부터 버린다. (LRU)
+*
+* 키로 쓸 수 있는 인자는 맵 키와 같고(SInterpMap.normalizeKey) nil 도 허용한다.
+* 리스트 같은 다른 값이 인자로 오면 저장하지 않고 매번 fn 을 호출한다.
+* fn 은 같은 인자에 항상 같은 결과를 내는 순수 함수여야 한다.
+* */
+public class SInterpMemo implements SInterpCallable {
+    private final SInterpCallable function;
+    private final int capacity;
+    private final LinkedHashMap<Key, Object> cache;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    SInterpMemo(SInterpCallable function, int capacity) {
+        this.function = function;
+        this.capacity = capacity;
+        // accessOrder = true : get 할 때마다 맨 뒤로 옮겨 LRU 순서를 유지한다.
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Object> eldest) {
+                if (size() <= SInterpMemo.this.capacity)
+                    return false;
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    @Override
+    public int arity() {
+        return function.arity();
+    }
+
+    @Override
+    public Object call(Interpreter interpreter, List<Object> arguments) {
+        Key key = Key.of(arguments);
+        if (key == null)
+            return function.call(interpreter, arguments);
+
+        // 병렬 내장 함수에서 호출될 수 있으므로 캐시 접근은 동기화한다.
+        // fn 은 락 밖에서 실행한다. (재귀 호출이 같은 캐시를 쓴다.)
+        synchronized (this) {
+            if (cache.containsKey(key)) {
+                hits++;
+                return cache.get(key);
+            }
+            misses++;
+        }
+
+        Object value = function.call(interpreter, arguments);
+        synchronized (this) {
+            cache.put(key, value);
+        }
+        return value;
+    }
+
+    synchronized SInterpMap stats() {
+        SInterpMap stats = new SInterpMap();
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        stats.put("size", (long) cache.size());
+        stats.put("capacity", (long) capacity);
+        return stats;
+    }
+
+    synchronized void clear() {
+        cache.clear();
+        hits = 0;
+        misses = 0;
+        evictions = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "<memo " + function + ">";
+    }
+
+    // 인자 목록 키. 숫자는 정규화하므로 f(1) 과 f(1.0) 은 같은 키이다.
+    private static final class Key {
+        private final Object[] values;
+        private final int hash;
+
+        private Key(Object[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+
+        // 키로 쓸 수 없는 인자가 있으면 null
+        static Key of(List<Object> arguments) {
+            Object[] values = new Object[arguments.size()];
+            for (int i = 0; i < values.length; i++) {
+                Object argument = arguments.get(i);
+                if (argument == null)
+                    continue;
+                values[i] = SInterpMap.normalizeKey(argument);
+                if (values[i] == null)
+                    return null;
+            }
+            return new Key(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && Arrays.equals(values, ((Key) other).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.sealang.sinterp;
+
+// jdk.incubator.vector 를 쓸 수 없을 때의 VectorKernels 구현
+class ScalarKernels implements VectorKernels {
+    @Override
+    public double sum(double[] a, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] a, double[] b, int length) {
+        double sum = 0;
+        for (int i = 0; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scale(double[] a, int length, double factor) {
+        for (int i = 0; i < length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    public void addInto(double[] a, double[] b, int length) {
+        for (int i = 0; i < length; i++) {
+            a[i] += b[i];
+        }
+    }
+
+    @Override
+    public double min(double[] a, int length) {
+        double min = a[0];
+        for (int i = 1; i < length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] a, int length) {
+        double max = a[0];
+        for (int i = 1; i < length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+}
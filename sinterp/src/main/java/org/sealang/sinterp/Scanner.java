@@ -1,21 +1,42 @@
 package org.sealang.sinterp;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import static org.sealang.sinterp.TokenType.*;
 
+/*
+* 소스 문자열 전체를 받거나, Reader 에서 필요한 만큼씩 읽으면서 토큰을 만든다.
+* Reader 모드에서는 buffer 에 아직 토큰이 되지 않은 부분만 남기고 앞부분을 버린다.
+* start, current 는 buffer 안의 위치이다.
+*
+* 문자열 소스는 scanPacked 로 TokenStream 을 만든다. 토큰마다 객체나 렉심 문자열을 만들지 않고
+* 위치만 기록하므로 키워드도 문자열을 만들지 않고 찾는다.
+* */
 public class Scanner {
-    private final String source;
-    private final List<Token> tokens = new ArrayList<>();
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final Reader reader; // 문자열 전체를 받았으면 null
+    private char[] buffer;
+    private int limit; // buffer 에서 유효한 문자 수
+    // scanToken 이 만든 토큰. 렉심은 buffer[start, current)
+    private TokenType scannedType;
+    private Object scannedLiteral;
 
     private int start = 0; // first character of lexeme
     private int current = 0; // current position
     private int line = 1;
+    // 숫자 리터럴 값을 공유하는 상수 풀
+    private final ConstantPool constants = new ConstantPool();
 
     private static final Map<String, TokenType> keywords;
+    // 렉심 문자열을 만들지 않고 키워드를 찾을 때 쓴다.
+    private static final char[][] keywordChars;
+    private static final TokenType[] keywordTypes;
 
     static {
         keywords = new HashMap<>();
@@ -26,6 +47,7 @@ public class Scanner {
         keywords.put("for", FOR);
         keywords.put("fun", FUN);
         keywords.put("if", IF);
+        keywords.put("in", IN);
         keywords.put("nil", NIL);
         keywords.put("or", OR);
         keywords.put("print", PRINT);
@@ -35,21 +57,72 @@ public class Scanner {
         keywords.put("true", TRUE);
         keywords.put("var", VAR);
         keywords.put("while", WHILE);
+        keywords.put("yield", YIELD);
+
+        keywordChars = new char[keywords.size()][];
+        keywordTypes = new TokenType[keywords.size()];
+        int i = 0;
+        for (Map.Entry<String, TokenType> entry : keywords.entrySet()) {
+            keywordChars[i] = entry.getKey().toCharArray();
+            keywordTypes[i] = entry.getValue();
+            i++;
+        }
     }
 
     Scanner(String source) {
-        this.source = source;
+        this(source.toCharArray(), 0, source.length(), 1);
     }
 
-    List<Token> scanTokens() {
-        while (!isAtEnd()) {
+    // source[from, to) 만 스캔한다. line 은 from 위치의 라인
+    Scanner(char[] source, int from, int to, int line) {
+        this.reader = null;
+        this.buffer = source;
+        this.limit = to;
+        this.start = from;
+        this.current = from;
+        this.line = line;
+    }
+
+    Scanner(Reader reader) {
+        this.reader = reader;
+        this.buffer = new char[CHUNK_SIZE];
+        this.limit = 0;
+    }
+
+    // 소스 전체의 토큰. 문자열 소스에서만 쓸 수 있다.
+    TokenStream scanPacked() {
+        if (reader != null)
+            throw new IllegalStateException("Packed tokens need the whole source.");
+
+        TokenStream tokens = new TokenStream(buffer);
+        while (scanNext()) {
+            tokens.add(scannedType, start, current - start, line, scannedLiteral);
+        }
+        tokens.add(EOF, current, 0, line, null);
+        return tokens;
+    }
+
+    // 다음 토큰. 끝에 도달하면 계속 EOF 토큰을 돌려준다.
+    Token nextToken() {
+        if (!scanNext())
+            return new Token(EOF, "", null, line);
+        if (scannedType == IDENTIFIER)
+            return new Token(IDENTIFIER, (Symbol) scannedLiteral, line);
+        return new Token(scannedType, text(start, current), scannedLiteral, line);
+    }
+
+    // 다음 토큰을 scannedType, scannedLiteral 에 읽는다. 끝에 도달했으면 false
+    private boolean scanNext() {
+        scannedType = null;
+        scannedLiteral = null;
+        while (scannedType == null) {
+            if (isAtEnd())
+                return false;
             // we are in front of next lexeme.
             start = current;
             scanToken();
         }
-
-        tokens.add(new Token(EOF, "", null, line));
-        return tokens;
+        return true;
     }
 
     private void scanToken() {
@@ -71,6 +144,14 @@ public class Scanner {
                 addToken(RBRACE);
                 break;
 
+            case '[' :
+                addToken(LBRACKET);
+                break;
+
+            case ']' :
+                addToken(RBRACKET);
+                break;
+
             case ',' :
                 addToken(COMMA);
                 break;
@@ -80,11 +161,17 @@ public class Scanner {
                 break;
 
             case '-' :
-                addToken(MINUS);
+                if (match('-'))
+                    addToken(MINUS_MINUS);
+                else
+                    addToken(match('=') ? MINUS_EQUAL : MINUS);
                 break;
 
             case '+' :
-                addToken(PLUS);
+                if (match('+'))
+                    addToken(PLUS_PLUS);
+                else
+                    addToken(match('=') ? PLUS_EQUAL : PLUS);
                 break;
 
             case ';' :
@@ -157,12 +244,23 @@ public class Scanner {
         while(isAlphaNumeric(peek()))
             advance();
 
-        String text = source.substring(start, current);
-        TokenType type = keywords.get(text);
-        if (type == null)
-            type = IDENTIFIER;
+        // 식별자는 심볼 테이블에 intern 해서 리터럴 자리에 둔다.
+        TokenType type = keyword(buffer, start, current - start);
+        if (type == IDENTIFIER)
+            addToken(IDENTIFIER, Symbol.intern(buffer, start, current - start));
+        else
+            addToken(type);
+    }
 
-        addToken(type);
+    // buffer[start, start + length) 가 키워드이면 그 타입, 아니면 IDENTIFIER
+    private static TokenType keyword(char[] buffer, int start, int length) {
+        for (int i = 0; i < keywordChars.length; i++) {
+            char[] chars = keywordChars[i];
+            if (chars.length == length &&
+                    Arrays.equals(chars, 0, length, buffer, start, start + length))
+                return keywordTypes[i];
+        }
+        return IDENTIFIER;
     }
 
     private void number() {
@@ -178,7 +276,8 @@ public class Scanner {
                 advance();
         }
 
-        addToken(NUMBER, Double.parseDouble(source.substring(start, current)));
+        // 소수점이 없으면 정수(Long), 있으면 실수(Double)
+        addToken(NUMBER, NumberOps.parse(buffer, start, current - start, constants));
     }
 
     private void string() {
@@ -197,14 +296,14 @@ public class Scanner {
         advance();
 
         // 양 끝단의 " 를 잘라냄
-        String value = source.substring(start+1, current-1);
+        String value = text(start+1, current-1);
         addToken(STRING, value);
     }
 
     private boolean match(char expected) {
         if (isAtEnd())
             return false;
-        if (source.charAt(current) != expected)
+        if (buffer[current] != expected)
             return false;
 
         current++;
@@ -214,13 +313,13 @@ public class Scanner {
     private char peek() {
         if (isAtEnd())
             return'\0';
-        return source.charAt(current);
+        return buffer[current];
     }
 
     private char peekNext() {
-        if (current + 1 >= source.length())
+        if (!available(1))
             return '\0';
-        return source.charAt(current + 1);
+        return buffer[current + 1];
     }
 
     private boolean isAlpah(char c) {
@@ -238,12 +337,51 @@ public class Scanner {
     }
 
     private boolean isAtEnd() {
-        return current >= source.length();
+        return !available(0);
+    }
+
+    // buffer[current + offset] 를 읽을 수 있는지. 필요하면 Reader 에서 더 읽는다.
+    // fill 이 버퍼를 당기면 current 가 바뀌므로 위치는 current 기준으로 받는다.
+    private boolean available(int offset) {
+        while (current + offset >= limit) {
+            if (!fill())
+                return false;
+        }
+        return true;
+    }
+
+    // 현재 렉심 앞부분을 버리고 뒤에 새 문자를 읽어 붙인다. 더 읽을 것이 없으면 false
+    private boolean fill() {
+        if (reader == null)
+            return false;
+
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            current -= start;
+            start = 0;
+        }
+        if (limit == buffer.length) // 렉심 하나가 버퍼보다 길다.
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+        try {
+            int read = reader.read(buffer, limit, buffer.length - limit);
+            if (read <= 0)
+                return false;
+            limit += read;
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private String text(int from, int to) {
+        return new String(buffer, from, to - from);
     }
 
     private char advance() { // lookahead
         current++;
-        return source.charAt(current-1);
+        return buffer[current-1];
     }
 
     private void addToken(TokenType type) {
@@ -251,7 +389,7 @@ public class Scanner {
     }
 
     private void addToken(TokenType type, Object literal) {
-        String text = source.substring(start, current);
-        tokens.add(new Token(type, text, literal, line));
+        scannedType = type;
+        scannedLiteral = literal;
     }
 }
@@ -7,12 +7,15 @@ abstract class Stmt {
         R visitBlockStmt(Block stmt);
         R visitClassStmt(Class stmt);
         R visitExpressionStmt(Expression stmt);
+        R visitForInStmt(ForIn stmt);
         R visitFunctionStmt(Function stmt);
+        R visitHoistedWhileStmt(HoistedWhile stmt);
         R visitIfStmt(If stmt);
         R visitPrintStmt(Print stmt);
         R visitReturnStmt(Return stmt);
         R visitVarStmt(Var stmt);
         R visitWhileStmt(While stmt);
+        R visitYieldStmt(Yield stmt);
     }
 
     static class Block extends Stmt {
@@ -56,11 +59,29 @@ abstract class Stmt {
         final Expr expression;
     }
 
+    static class ForIn extends Stmt {
+        ForIn(Token name, Expr iterable, Stmt body) {
+            this.name = name;
+            this.iterable = iterable;
+            this.body = body;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitForInStmt(this);
+        };
+
+        final Token name;
+        final Expr iterable;
+        final Stmt body;
+    }
+
     static class Function extends Stmt {
-        Function(Token name, List<Token> params, List<Stmt> body) {
+        Function(Token name, List<Token> params, List<Stmt> body, boolean generator) {
             this.name = name;
             this.params = params;
             this.body = body;
+            this.generator = generator;
         }
 
         @Override
@@ -71,6 +92,26 @@ abstract class Stmt {
         final Token name;
         final List<Token> params;
         final List<Stmt> body;
+        final boolean generator;
+    }
+
+    static class HoistedWhile extends Stmt {
+        HoistedWhile(Expr condition, Stmt body, int loop, int slots) {
+            this.condition = condition;
+            this.body = body;
+            this.loop = loop;
+            this.slots = slots;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitHoistedWhileStmt(this);
+        };
+
+        final Expr condition;
+        final Stmt body;
+        final int loop;
+        final int slots;
     }
 
     static class If extends Stmt {
@@ -148,6 +189,21 @@ abstract class Stmt {
         final Stmt body;
     }
 
+    static class Yield extends Stmt {
+        Yield(Token keyword, Expr value) {
+            this.keyword = keyword;
+            this.value = value;
+        }
+
+        @Override
+        <R> R accept(Visitor<R> visitor) {
+            return visitor.visitYieldStmt(this);
+        };
+
+        final Token keyword;
+        final Expr value;
+    }
+
 
     abstract <R> R accept(Visitor<R> visitor);
 }
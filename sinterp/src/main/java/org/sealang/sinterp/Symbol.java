@@ -0,0 +1,98 @@
+package org.sealang.sinterp;
+
+/*
+* 이름(식별자)을 나타내는 유일한 객체. 같은 이름은 항상 같은 Symbol 이므로
+* 환경, 인스턴스 필드, 메서드 테이블은 Symbol 을 키로 써서 identity 로 비교한다.
+*
+* 전역 심볼 테이블은 선형 탐사 해시 테이블이다. Scanner 는 식별자를 읽을 때
+* 렉심 문자열을 만들지 않고 버퍼의 문자 구간으로 바로 찾는다.
+* 제너레이터, 병렬 내장 함수의 스레드에서도 쓰이므로 테이블 접근은 동기화한다.
+* */
+final class Symbol {
+    private static Symbol[] table = new Symbol[1024];
+    private static int count = 0;
+
+    final String name;
+    private final int hash;
+
+    private Symbol(String name, int hash) {
+        this.name = name;
+        this.hash = hash;
+    }
+
+    static synchronized Symbol intern(char[] chars, int start, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[start + i];
+        }
+
+        int mask = table.length - 1;
+        int i = spread(hash) & mask;
+        for (Symbol symbol = table[i]; symbol != null; symbol = table[i]) {
+            if (symbol.hash == hash && symbol.matches(chars, start, length))
+                return symbol;
+            i = (i + 1) & mask;
+        }
+        return add(new Symbol(new String(chars, start, length), hash), i);
+    }
+
+    static synchronized Symbol intern(String name) {
+        int hash = name.hashCode();
+        int mask = table.length - 1;
+        int i = spread(hash) & mask;
+        for (Symbol symbol = table[i]; symbol != null; symbol = table[i]) {
+            if (symbol.hash == hash && symbol.name.equals(name))
+                return symbol;
+            i = (i + 1) & mask;
+        }
+        return add(new Symbol(name, hash), i);
+    }
+
+    private boolean matches(char[] chars, int start, int length) {
+        if (name.length() != length)
+            return false;
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[start + i])
+                return false;
+        }
+        return true;
+    }
+
+    // table[slot] 이 비어 있어야 한다.
+    private static Symbol add(Symbol symbol, int slot) {
+        table[slot] = symbol;
+        count++;
+        if (count * 2 > table.length)
+            resize();
+        return symbol;
+    }
+
+    private static void resize() {
+        Symbol[] old = table;
+        table = new Symbol[old.length * 2];
+        int mask = table.length - 1;
+        for (Symbol symbol : old) {
+            if (symbol == null)
+                continue;
+            int i = spread(symbol.hash) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = symbol;
+        }
+    }
+
+    private static int spread(int hash) {
+        return (hash ^ (hash >>> 16)) * 0x9E3779B1;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
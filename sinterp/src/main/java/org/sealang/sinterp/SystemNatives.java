@@ -0,0 +1,87 @@
+package org.sealang.sinterp;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SplittableRandom;
+
+/*
+* 시스템 내장 함수
+*  clock()              : 초 단위 현재 시각 (밀리초 해상도)
+*  nanoClock()          : 나노초 단위 단조 증가 시각. 두 값의 차이만 의미가 있다.
+*  bench(fn, n)         : 인자 없는 fn 을 워밍업 후 n 번 실행해 잰 시간(나노초) 통계를 맵으로 돌려준다.
+*                         iterations, warmup, mean, min, max, p50, p90, p99
+*                         n 이 2^20 을 넘으면 백분위수는 무작위로 고른 2^20 개 측정값으로 계산한 근사값이다.
+* */
+final class SystemNatives {
+    private SystemNatives() {}
+
+    // 워밍업 횟수는 측정 횟수의 1/10 을 쓰되 이 범위를 벗어나지 않는다.
+    private static final long MIN_WARMUP = 1;
+    private static final long MAX_WARMUP = 1000;
+    // 백분위수를 계산하려고 남기는 측정값의 최대 개수 (8MB)
+    private static final int MAX_SAMPLES = 1 << 20;
+
+    @Native
+    static double clock() {
+        return (double)System.currentTimeMillis() / 1000.0;
+    }
+
+    @Native
+    static long nanoClock() {
+        return System.nanoTime();
+    }
+
+    @Native
+    static SInterpMap bench(Interpreter interpreter, SInterpCallable function, long count) {
+        if (function.arity() != 0)
+            throw new NativeError("Function must take 0 arguments.");
+        if (count < 1)
+            throw new NativeError("Iterations must be a positive integer.");
+
+        long warmup = Math.max(MIN_WARMUP, Math.min(MAX_WARMUP, count / 10));
+        for (long i = 0; i < warmup; i++) {
+            function.call(interpreter, Collections.emptyList());
+        }
+
+        // 측정값은 최대 MAX_SAMPLES 개만 저수지 표집(reservoir sampling)으로 남긴다.
+        // mean, min, max 는 모든 측정값으로, 백분위수는 표본으로 계산한다.
+        long[] samples = new long[(int) Math.min(count, MAX_SAMPLES)];
+        SplittableRandom random = new SplittableRandom();
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long i = 0; i < count; i++) {
+            long start = System.nanoTime();
+            function.call(interpreter, Collections.emptyList());
+            long elapsed = System.nanoTime() - start;
+            total += elapsed;
+            min = Math.min(min, elapsed);
+            max = Math.max(max, elapsed);
+            if (i < samples.length) {
+                samples[(int) i] = elapsed;
+            } else {
+                long slot = random.nextLong(i + 1);
+                if (slot < samples.length)
+                    samples[(int) slot] = elapsed;
+            }
+        }
+        Arrays.sort(samples);
+
+        SInterpMap result = new SInterpMap();
+        result.put("iterations", count);
+        result.put("warmup", warmup);
+        result.put("mean", (double) total / count);
+        result.put("min", min);
+        result.put("max", max);
+        result.put("p50", percentile(samples, 50));
+        result.put("p90", percentile(samples, 90));
+        result.put("p99", percentile(samples, 99));
+        return result;
+    }
+
+    // 정렬된 표본의 nearest-rank 백분위수
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -4,13 +4,27 @@ public class Token {
     final TokenType type;
     final String lexeme;
     final Object literal;
-    final int line; // 단순하게 하기 위해 이 토큰이 등장하는 줄수만 저장. 나중에는 컬럼과 길이를 저장해야 함.
+    // 단순하게 하기 위해 이 토큰이 등장하는 줄수만 저장. 나중에는 컬럼과 길이를 저장해야 함.
+    // IncrementalParser 가 앞쪽 편집으로 줄 수가 바뀐 선언의 토큰을 옮길 때만 바꾼다.
+    int line;
+    final Symbol symbol; // 식별자, this 의 이름. 그 외에는 null
 
     Token(TokenType type, String lexeme, Object literal, int line) {
+        this(type, lexeme, literal, line,
+                type == TokenType.IDENTIFIER || type == TokenType.THIS ? Symbol.intern(lexeme) : null);
+    }
+
+    // Scanner 가 intern 한 식별자
+    Token(TokenType type, Symbol symbol, int line) {
+        this(type, symbol.name, null, line, symbol);
+    }
+
+    private Token(TokenType type, String lexeme, Object literal, int line, Symbol symbol) {
         this.type = type;
         this.lexeme = lexeme;
         this.literal = literal;
         this.line = line;
+        this.symbol = symbol;
     }
 
     public String toString() {
@@ -0,0 +1,131 @@
+package org.sealang.sinterp;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+* 토큰을 객체 대신 평행한 int 배열에 담은 토큰 열. Scanner.scanPacked 가 만든다.
+*
+* 토큰마다 타입, 소스에서의 시작 위치와 길이, 라인만 기록하고 숫자/문자열 리터럴 값과
+* 식별자의 Symbol 은 literals 에 따로 모은다. types 의 하위 8비트는 TokenType 의 ordinal,
+* 나머지는 literals 의 인덱스 + 1 (리터럴이 없으면 0)이다.
+*
+* Token 객체는 Parser 가 AST 에 넣을 때만 token() 으로 만든다. 렉심 문자열도 그때 만들며,
+* 구두점과 키워드처럼 렉심이 항상 같은 타입은 같은 문자열을 재사용한다.
+* */
+final class TokenStream {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final int TYPE_BITS = 8;
+    private static final int TYPE_MASK = (1 << TYPE_BITS) - 1;
+
+    private final char[] source;
+    private int[] types = new int[256];
+    private int[] starts = new int[256];
+    private int[] lengths = new int[256];
+    private int[] lines = new int[256];
+    private int size = 0;
+
+    private Object[] literals = new Object[16];
+    private int literalCount = 0;
+
+    // 렉심이 항상 같은 타입의 렉심. 처음 token() 을 만들 때 채운다.
+    private final String[] fixedLexemes = new String[TYPES.length];
+    // 직전에 만든 Token. Parser 가 같은 토큰을 여러 번 꺼내도 한 번만 만든다.
+    private int cachedIndex = -1;
+    private Token cached;
+    // null 이 아니면 token() 이 만든 Token 을 모두 담는다.
+    private List<Token> created;
+
+    TokenStream(char[] source) {
+        this.source = source;
+    }
+
+    void add(TokenType type, int start, int length, int line, Object literal) {
+        if (size == types.length)
+            grow();
+
+        int slot = 0;
+        if (literal != null) {
+            if (literalCount == literals.length)
+                literals = Arrays.copyOf(literals, literalCount * 2);
+            literals[literalCount++] = literal;
+            slot = literalCount;
+        }
+
+        types[size] = type.ordinal() | (slot << TYPE_BITS);
+        starts[size] = start;
+        lengths[size] = length;
+        lines[size] = line;
+        size++;
+    }
+
+    void collectTokens(List<Token> tokens) {
+        this.created = tokens;
+    }
+
+    int size() {
+        return size;
+    }
+
+    TokenType type(int index) {
+        return TYPES[types[index] & TYPE_MASK];
+    }
+
+    char[] source() {
+        return source;
+    }
+
+    int start(int index) {
+        return starts[index];
+    }
+
+    int line(int index) {
+        return lines[index];
+    }
+
+    Object literal(int index) {
+        int slot = types[index] >>> TYPE_BITS;
+        return slot == 0 ? null : literals[slot - 1];
+    }
+
+    Token token(int index) {
+        if (index == cachedIndex)
+            return cached;
+
+        TokenType type = type(index);
+        if (type == TokenType.IDENTIFIER)
+            cached = new Token(type, (Symbol) literal(index), lines[index]);
+        else
+            cached = new Token(type, lexeme(index), literal(index), lines[index]);
+        cachedIndex = index;
+        if (created != null)
+            created.add(cached);
+        return cached;
+    }
+
+    private String lexeme(int index) {
+        TokenType type = type(index);
+        switch (type) {
+            case NUMBER:
+            case STRING:
+                return new String(source, starts[index], lengths[index]);
+            case EOF:
+                return "";
+            default:
+                String lexeme = fixedLexemes[type.ordinal()];
+                if (lexeme == null) {
+                    lexeme = new String(source, starts[index], lengths[index]);
+                    fixedLexemes[type.ordinal()] = lexeme;
+                }
+                return lexeme;
+        }
+    }
+
+    private void grow() {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+    }
+}
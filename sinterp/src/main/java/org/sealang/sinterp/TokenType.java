@@ -6,6 +6,8 @@ public enum TokenType {
     RPAREN,     // )
     LBRACE,     // {
     RBRACE,     // }
+    LBRACKET,   // [
+    RBRACKET,   // ]
     COMMA,      // ,
     DOT,        // .
     MINUS,      // -
@@ -23,6 +25,10 @@ public enum TokenType {
     GREATER_EQUAL, // >=
     LESS,       // <
     LESS_EQUAL, // <=
+    PLUS_EQUAL, // +=
+    MINUS_EQUAL, // -=
+    PLUS_PLUS,  // ++
+    MINUS_MINUS, // --
 
     // Lieterals
     IDENTIFIER, // 식별자
@@ -37,6 +43,7 @@ public enum TokenType {
     FUN,        // fun
     FOR,        // for
     IF,         // if
+    IN,         // in
     NIL,        // nil
     OR,         // or
     PRINT,      // print
@@ -46,6 +53,7 @@ public enum TokenType {
     TRUE,       // true
     VAR,        // var
     WHILE,      // while
+    YIELD,      // yield
 
     EOF
 
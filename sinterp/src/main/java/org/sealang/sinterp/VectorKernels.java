@@ -0,0 +1,44 @@
+package org.sealang.sinterp;
+
+/*
+* VectorKernels
+* double[] 의 앞쪽 length 개 원소에 대한 일괄 연산.
+* jdk.incubator.vector 모듈이 있으면 SIMD 구현을, 없으면 스칼라 구현을 쓴다.
+* 이 모듈은 실행할 때 --add-modules 로 주어야 로드된다. (README.md)
+* -Dsinterp.simd=false 로 스칼라 구현을 강제할 수 있다.
+*
+* SIMD 구현의 sum, dot 은 덧셈 순서가 달라 스칼라 구현과 마지막 자리가 다를 수 있다.
+* 차이는 length * ulp(각 항의 절댓값의 합) 이내이다. (KernelsTest)
+* 곱 자체는 두 구현이 같게 반올림한다. (dot 에 fma 를 쓰지 않는다.)
+* */
+interface VectorKernels {
+    VectorKernels INSTANCE = load();
+
+    double sum(double[] a, int length);
+
+    double dot(double[] a, double[] b, int length);
+
+    void scale(double[] a, int length, double factor);
+
+    // a[i] += b[i]
+    void addInto(double[] a, double[] b, int length);
+
+    // length > 0 이어야 한다. NaN 이 있으면 NaN (Math.min/max 와 같다.)
+    double min(double[] a, int length);
+
+    double max(double[] a, int length);
+
+    private static VectorKernels load() {
+        if (SInterp.option("simd", true) &&
+                ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // 모듈이 없을 때 클래스가 링크되지 않도록 이름으로 읽는다.
+                return (VectorKernels) Class.forName("org.sealang.sinterp.SimdKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // 스칼라 구현을 쓴다.
+            }
+        }
+        return new ScalarKernels();
+    }
+}
@@ -2,6 +2,7 @@ package org.sealang.tool;
 
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -15,34 +16,54 @@ public class GenerateAst {
         String outputDir = args[0];
 
         // 문 Node 정의
-        defineAst(outputDir, "Expr", Arrays.asList(
+        List<String> exprTypes = Arrays.asList(
                 "Assign     : Token name, Expr value",
                 "Binary     : Expr left, Token operator, Expr right",
                 "Call       : Expr callee, Token paren, List<Expr> arguments",
+                "CompareConst : Token name, Token operator, Object constant",
+                "CompoundAssign : Token name, Token operator, Expr value, boolean postfix",
+                "CompoundSet : Expr object, Token name, Token operator, Expr value," +
+                            " boolean postfix",
+                "CompoundIndexSet : Expr object, Token bracket, Expr index, Token operator," +
+                            " Expr value, boolean postfix",
+                "FieldAddAssign : Expr object, Token name, Token operator, Expr value",
                 "Get        : Expr object, Token name",
                 "Grouping   : Expr expression",
+                "Hoisted    : Expr expression, int loop, int slot",
+                "Increment  : Token name, Token operator, Object delta",
+                "Index      : Expr object, Token bracket, Expr index",
+                "IndexSet   : Expr object, Token bracket, Expr index, Expr value",
+                "ListLiteral : Token bracket, List<Expr> elements",
                 "Literal    : Object value",
                 "Logical    : Expr left, Token operator, Expr right",
                 "Set        : Expr object, Token name, Expr value",
                 "This       : Token keyword",
                 "Unary      : Token operator, Expr right",
                 "Variable   : Token name"
-        ));
+        );
+        defineAst(outputDir, "Expr", exprTypes);
 
         // 문장 Node 정의
-        defineAst(outputDir, "Stmt", Arrays.asList(
+        List<String> stmtTypes = Arrays.asList(
                 "Block      : List<Stmt> statements",
                 "Class      : Token name, List<Stmt.Function> methods",
                 "Expression : Expr expression",
+                "ForIn      : Token name, Expr iterable, Stmt body",
                 "Function   : Token name, List<Token> params," +
-                            " List<Stmt> body",
+                            " List<Stmt> body, boolean generator",
+                "HoistedWhile : Expr condition, Stmt body," +
+                            " int loop, int slots",
                 "If         : Expr condition, Stmt thenBranch," +
                             " Stmt elseBranch",
                 "Print      : Expr expression",
                 "Return     : Token keyword, Expr value",
                 "Var        : Token name, Expr initializer",
-                "While      : Expr condition, Stmt body"
-        ));
+                "While      : Expr condition, Stmt body",
+                "Yield      : Token keyword, Expr value"
+        );
+        defineAst(outputDir, "Stmt", stmtTypes);
+
+        defineCodec(outputDir, exprTypes, stmtTypes);
     }
 
     private static void defineAst(
@@ -123,4 +144,232 @@ public class GenerateAst {
         writer.println("    }");
         writer.println();
     }
+
+    // AST 캐시(AstCache)가 쓰는 직렬화 코드. 노드마다 종류 번호와 필드를 정의 순서대로 쓴다.
+    private static void defineCodec(
+            String outputDir,
+            List<String> exprTypes,
+            List<String> stmtTypes ) throws IOException {
+        String path = outputDir + "/AstCodec.java";
+        PrintWriter writer = new PrintWriter(path, "UTF-8");
+
+        List<String> all = new ArrayList<>(exprTypes);
+        all.addAll(stmtTypes);
+
+        writer.println("package org.sealang.sinterp;");
+        writer.println();
+        writer.println("import java.util.ArrayList;");
+        writer.println("import java.util.List;");
+        writer.println();
+        writer.println("// GenerateAst 가 만든 AST 직렬화 코드. 노드마다 종류 번호(0 은 null)와 필드를 순서대로 쓴다.");
+        writer.println("// 토큰, 값, 리졸브 깊이, 파싱을 미룬 본문은 AstOutput, AstInput 이 처리한다.");
+        writer.println("final class AstCodec {");
+        writer.println("    // 노드 정의가 바뀌면 달라진다. 캐시에 기록해서 다른 정의로 만든 캐시를 버린다.");
+        writer.println("    static final int SCHEMA = " + String.join("\n", all).hashCode() + ";");
+        writer.println();
+        writer.println("    private AstCodec() {}");
+        writer.println();
+
+        defineWriter(writer, exprTypes, stmtTypes);
+        writer.println();
+        defineReader(writer, exprTypes, stmtTypes);
+
+        writer.println("}");
+        writer.close();
+    }
+
+    private static void defineWriter(
+            PrintWriter writer, List<String> exprTypes, List<String> stmtTypes ) {
+        writer.println("    static final class Writer implements Expr.Visitor<Void>, Stmt.Visitor<Void> {");
+        writer.println("        private final AstOutput out;");
+        writer.println();
+        writer.println("        Writer(AstOutput out) {");
+        writer.println("            this.out = out;");
+        writer.println("        }");
+        writer.println();
+        writer.println("        void write(Expr expr) {");
+        writer.println("            if (expr == null) {");
+        writer.println("                out.writeInt(0);");
+        writer.println("                return;");
+        writer.println("            }");
+        writer.println("            expr.accept(this);");
+        writer.println("            out.writeDepth(expr);");
+        writer.println("        }");
+        writer.println();
+        writer.println("        void write(Stmt stmt) {");
+        writer.println("            if (stmt == null) {");
+        writer.println("                out.writeInt(0);");
+        writer.println("                return;");
+        writer.println("            }");
+        writer.println("            stmt.accept(this);");
+        writer.println("        }");
+        writer.println();
+        writer.println("        void writeExprs(List<Expr> exprs) {");
+        writer.println("            out.writeInt(exprs.size());");
+        writer.println("            for (Expr expr : exprs) {");
+        writer.println("                write(expr);");
+        writer.println("            }");
+        writer.println("        }");
+        writer.println();
+        writer.println("        void writeStmts(List<? extends Stmt> stmts) {");
+        writer.println("            if (out.writeLazyBody(stmts))");
+        writer.println("                return;");
+        writer.println("            out.writeInt(stmts.size());");
+        writer.println("            for (Stmt stmt : stmts) {");
+        writer.println("                write(stmt);");
+        writer.println("            }");
+        writer.println("        }");
+        writer.println();
+        writer.println("        void writeTokens(List<Token> tokens) {");
+        writer.println("            out.writeInt(tokens.size());");
+        writer.println("            for (Token token : tokens) {");
+        writer.println("                out.writeToken(token);");
+        writer.println("            }");
+        writer.println("        }");
+
+        defineWriteVisits(writer, "Expr", exprTypes);
+        defineWriteVisits(writer, "Stmt", stmtTypes);
+        writer.println("    }");
+    }
+
+    private static void defineWriteVisits(
+            PrintWriter writer, String baseName, List<String> types ) {
+        for (int i = 0; i < types.size(); i++) {
+            String className = types.get(i).split(":")[0].trim();
+            String[] fields = types.get(i).split(":")[1].trim().split(", ");
+            String node = baseName.toLowerCase();
+
+            writer.println();
+            writer.println("        @Override");
+            writer.println("        public Void visit" + className + baseName + "(" +
+                    baseName + "." + className + " " + node + ") {");
+            writer.println("            out.writeInt(" + (i + 1) + ");");
+            for (String field : fields) {
+                String type = field.split(" ")[0];
+                String value = node + "." + field.split(" ")[1];
+                writer.println("            " + writeCall(type, value) + ";");
+            }
+            writer.println("            return null;");
+            writer.println("        }");
+        }
+    }
+
+    private static String writeCall(String type, String value) {
+        switch (type) {
+            case "Token": return "out.writeToken(" + value + ")";
+            case "Expr":
+            case "Stmt": return "write(" + value + ")";
+            case "List<Expr>": return "writeExprs(" + value + ")";
+            case "List<Stmt>":
+            case "List<Stmt.Function>": return "writeStmts(" + value + ")";
+            case "List<Token>": return "writeTokens(" + value + ")";
+            case "Object": return "out.writeValue(" + value + ")";
+            case "boolean": return "out.writeBoolean(" + value + ")";
+            case "int": return "out.writeInt(" + value + ")";
+            default: throw new IllegalArgumentException("Can't serialize field type " + type);
+        }
+    }
+
+    private static void defineReader(
+            PrintWriter writer, List<String> exprTypes, List<String> stmtTypes ) {
+        writer.println("    static final class Reader {");
+        writer.println("        private final AstInput in;");
+        writer.println();
+        writer.println("        Reader(AstInput in) {");
+        writer.println("            this.in = in;");
+        writer.println("        }");
+
+        defineReadNode(writer, "Expr", exprTypes);
+        defineReadNode(writer, "Stmt", stmtTypes);
+
+        writer.println();
+        writer.println("        List<Expr> readExprs() {");
+        writer.println("            int size = in.readInt();");
+        writer.println("            List<Expr> exprs = new ArrayList<>(size);");
+        writer.println("            for (int i = 0; i < size; i++) {");
+        writer.println("                exprs.add(readExpr());");
+        writer.println("            }");
+        writer.println("            return exprs;");
+        writer.println("        }");
+        writer.println();
+        writer.println("        List<Stmt> readStmts() {");
+        writer.println("            int size = in.readInt();");
+        writer.println("            if (size < 0)");
+        writer.println("                return in.readLazyBody();");
+        writer.println("            List<Stmt> stmts = new ArrayList<>(size);");
+        writer.println("            for (int i = 0; i < size; i++) {");
+        writer.println("                stmts.add(readStmt());");
+        writer.println("            }");
+        writer.println("            return stmts;");
+        writer.println("        }");
+        writer.println();
+        writer.println("        List<Stmt.Function> readFunctions() {");
+        writer.println("            int size = in.readInt();");
+        writer.println("            List<Stmt.Function> functions = new ArrayList<>(size);");
+        writer.println("            for (int i = 0; i < size; i++) {");
+        writer.println("                functions.add((Stmt.Function) readStmt());");
+        writer.println("            }");
+        writer.println("            return functions;");
+        writer.println("        }");
+        writer.println();
+        writer.println("        List<Token> readTokens() {");
+        writer.println("            int size = in.readInt();");
+        writer.println("            List<Token> tokens = new ArrayList<>(size);");
+        writer.println("            for (int i = 0; i < size; i++) {");
+        writer.println("                tokens.add(in.readToken());");
+        writer.println("            }");
+        writer.println("            return tokens;");
+        writer.println("        }");
+        writer.println("    }");
+    }
+
+    private static void defineReadNode(
+            PrintWriter writer, String baseName, List<String> types ) {
+        String node = baseName.toLowerCase();
+        writer.println();
+        writer.println("        " + baseName + " read" + baseName + "() {");
+        writer.println("            int kind = in.readInt();");
+        writer.println("            " + baseName + " " + node + ";");
+        writer.println("            switch (kind) {");
+        writer.println("                case 0:");
+        writer.println("                    return null;");
+        for (int i = 0; i < types.size(); i++) {
+            String className = types.get(i).split(":")[0].trim();
+            String[] fields = types.get(i).split(":")[1].trim().split(", ");
+
+            // 인자는 왼쪽부터 평가되므로 쓴 순서대로 읽는다.
+            List<String> arguments = new ArrayList<>();
+            for (String field : fields) {
+                arguments.add(readCall(field.split(" ")[0]));
+            }
+            writer.println("                case " + (i + 1) + ":");
+            writer.println("                    " + node + " = new " + baseName + "." + className +
+                    "(" + String.join(", ", arguments) + ");");
+            writer.println("                    break;");
+        }
+        writer.println("                default:");
+        writer.println("                    throw new IllegalStateException(\"Unknown " + baseName +
+                " kind \" + kind + \".\");");
+        writer.println("            }");
+        if (baseName.equals("Expr"))
+            writer.println("            in.readDepth(" + node + ");");
+        writer.println("            return " + node + ";");
+        writer.println("        }");
+    }
+
+    private static String readCall(String type) {
+        switch (type) {
+            case "Token": return "in.readToken()";
+            case "Expr": return "readExpr()";
+            case "Stmt": return "readStmt()";
+            case "List<Expr>": return "readExprs()";
+            case "List<Stmt>": return "readStmts()";
+            case "List<Stmt.Function>": return "readFunctions()";
+            case "List<Token>": return "readTokens()";
+            case "Object": return "in.readValue()";
+            case "boolean": return "in.readBoolean()";
+            case "int": return "in.readInt()";
+            default: throw new IllegalArgumentException("Can't deserialize field type " + type);
+        }
+    }
 }
@@ -0,0 +1,109 @@
+package org.sealang.sinterp;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/*
+* jdk.incubator.vector 를 쓰는 VectorKernels 구현.
+* 벡터 폭만큼씩 처리하고 남은 꼬리 원소는 스칼라로 처리한다.
+* 이 클래스는 VectorKernels.load 에서 이름으로만 읽는다.
+* 모듈 플래그가 이 클래스에만 적용되도록 simd 소스 세트에서 따로 컴파일한다. (build.gradle)
+* */
+class SimdKernels implements VectorKernels {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public double sum(double[] a, int length) {
+        int bound = SPECIES.loopBound(length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            acc = acc.add(DoubleVector.fromArray(SPECIES, a, i));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public double dot(double[] a, double[] b, int length) {
+        int bound = SPECIES.loopBound(length);
+        DoubleVector acc = DoubleVector.zero(SPECIES);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector vb = DoubleVector.fromArray(SPECIES, b, i);
+            // fma 는 곱을 반올림하지 않아 스칼라 구현과 결과가 달라지므로 곱한 뒤 더한다.
+            acc = acc.add(va.mul(vb));
+        }
+        double sum = acc.reduceLanes(VectorOperators.ADD);
+        for (; i < length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    @Override
+    public void scale(double[] a, int length, double factor) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector.fromArray(SPECIES, a, i).mul(factor).intoArray(a, i);
+        }
+        for (; i < length; i++) {
+            a[i] *= factor;
+        }
+    }
+
+    @Override
+    public void addInto(double[] a, double[] b, int length) {
+        int bound = SPECIES.loopBound(length);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector va = DoubleVector.fromArray(SPECIES, a, i);
+            va.add(DoubleVector.fromArray(SPECIES, b, i)).intoArray(a, i);
+        }
+        for (; i < length; i++) {
+            a[i] += b[i];
+        }
+    }
+
+    @Override
+    public double min(double[] a, int length) {
+        int bound = SPECIES.loopBound(length);
+        double min = a[0];
+        int i = 0;
+        if (bound > 0) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, a, 0);
+            for (i = SPECIES.length(); i < bound; i += SPECIES.length()) {
+                acc = acc.min(DoubleVector.fromArray(SPECIES, a, i));
+            }
+            min = acc.reduceLanes(VectorOperators.MIN);
+        }
+        for (; i < length; i++) {
+            min = Math.min(min, a[i]);
+        }
+        return min;
+    }
+
+    @Override
+    public double max(double[] a, int length) {
+        int bound = SPECIES.loopBound(length);
+        double max = a[0];
+        int i = 0;
+        if (bound > 0) {
+            DoubleVector acc = DoubleVector.fromArray(SPECIES, a, 0);
+            for (i = SPECIES.length(); i < bound; i += SPECIES.length()) {
+                acc = acc.max(DoubleVector.fromArray(SPECIES, a, i));
+            }
+            max = acc.reduceLanes(VectorOperators.MAX);
+        }
+        for (; i < length; i++) {
+            max = Math.max(max, a[i]);
+        }
+        return max;
+    }
+}
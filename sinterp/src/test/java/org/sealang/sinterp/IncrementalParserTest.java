@@ -0,0 +1,261 @@
+package org.sealang.sinterp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 편집할 때마다 증분 파싱 결과가 같은 소스를 처음부터 파싱한 결과와 같은지 확인한다.
+class IncrementalParserTest {
+    private static final String SOURCE = String.join("\n",
+            "fun add(a, b) {",
+            "  // comment with } and ;",
+            "  var s = \"str { ; }\";",
+            "  return a + b;",
+            "}",
+            "if (add(1, 2) > 1) print \"big\";",
+            "else print \"small; 1\";",
+            "if (true) { print 2; }",
+            "// note",
+            "print 3;",
+            "class Point {",
+            "  init(x) { this.x = x; }",
+            "  get() { return this.x; }",
+            "}",
+            "var text = \"multi",
+            "line { string\";",
+            "var xs = [1, 2.5, \"three\"];",
+            "for (var i = 0; i < 2; i = i + 1) { xs[i] += 1; }",
+            "for (var x in xs) print x;",
+            "while (false) { var t = 1; }",
+            "{ var inner = 1; print inner; }",
+            "fun gen(n) {",
+            "  var i = 0;",
+            "  while (i < n) { yield i; i++; }",
+            "}",
+            "print text;",
+            "");
+
+    private static final String[] SNIPPETS = {
+            "\nprint 1;", "\nvar q = \"s { ;\";", "\n\n", "\nif (true) print 2;\nelse print 3;",
+            "\nfun h(a) {\n  return a;\n}", " ", "\n// note }\n",
+            "\nclass Z { m() { return 1; } }", "\n{ var w = 1; }", "x", "1", ";", "else ",
+    };
+
+    // 선언 경계를 흐트러뜨리는 편집
+    private static final String[] BREAKERS = {"{", "}", "(", ")", "\"", "// ", "else ", ";"};
+
+    @Test
+    void initialParseMatchesFullParse() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        assertFalse(parser.hadError());
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void elseAddedAfterIf() {
+        IncrementalParser parser = new IncrementalParser("if (true) print 1;\nprint 2;\nprint 3;\n");
+        int at = parser.source().indexOf("print 2");
+        parser.edit(at, at, "else ");
+        assertFalse(parser.hadError());
+        assertMatchesFullParse(parser);
+        assertEquals(2, parser.statements().size());
+
+        parser.edit(at, at + "else ".length(), "");
+        assertMatchesFullParse(parser);
+        assertEquals(3, parser.statements().size());
+    }
+
+    @Test
+    void elseAfterCommentBetweenDeclarations() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        int at = parser.source().indexOf("print 3;");
+        parser.edit(at, at, "else ");
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void unclosedBrace() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        int at = parser.source().indexOf("print 3;");
+        parser.edit(at, at, "{ ");
+        assertTrue(parser.hadError());
+        assertMatchesFullParse(parser);
+
+        int end = parser.source().indexOf("print text;");
+        parser.edit(end, end, "} ");
+        assertFalse(parser.hadError());
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void unclosedString() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        int at = parser.source().indexOf("print 3;");
+        parser.edit(at, at, "print \"");
+        assertTrue(parser.hadError());
+        assertMatchesFullParse(parser);
+
+        parser.edit(at, at + "print \"".length(), "");
+        assertFalse(parser.hadError());
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void lineCommentHidesDeclarationStart() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        int at = parser.source().indexOf("class Point");
+        parser.edit(at, at, "// ");
+        assertTrue(parser.hadError());
+        assertMatchesFullParse(parser);
+
+        parser.edit(at, at + "// ".length(), "");
+        assertFalse(parser.hadError());
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void lineCountChangeMovesLaterTokens() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        int at = parser.source().indexOf("print 3;");
+        parser.edit(at, at, "\n\n\n");
+        assertMatchesFullParse(parser);
+
+        // 여러 줄을 한 줄로 합친다.
+        int from = parser.source().indexOf("fun add");
+        int to = parser.source().indexOf("if (add");
+        parser.edit(from, to, "fun add(a, b) { return a + b; }\n");
+        assertMatchesFullParse(parser);
+
+        // 여러 줄 문자열 안의 줄바꿈을 지운다.
+        int newline = parser.source().indexOf("multi\n") + "multi".length();
+        parser.edit(newline, newline + 1, " ");
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void editsAtStartAndEnd() {
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        parser.edit(0, 0, "var first = 0;\n");
+        assertMatchesFullParse(parser);
+
+        int length = parser.source().length();
+        parser.edit(length, length, "print first;");
+        assertMatchesFullParse(parser);
+
+        parser.edit(0, "var first = 0;\n".length(), "");
+        assertMatchesFullParse(parser);
+
+        // 끝의 문장을 닫지 않은 채로 둔다.
+        length = parser.source().length();
+        parser.edit(length - 1, length, "");
+        assertTrue(parser.hadError());
+        assertMatchesFullParse(parser);
+
+        parser.edit(0, parser.source().length(), "");
+        assertMatchesFullParse(parser);
+        assertTrue(parser.statements().isEmpty());
+
+        parser.edit(0, 0, SOURCE);
+        assertMatchesFullParse(parser);
+    }
+
+    @Test
+    void editOutsideSource() {
+        IncrementalParser parser = new IncrementalParser("print 1;");
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(0, 9, ""));
+        assertThrows(IndexOutOfBoundsException.class, () -> parser.edit(2, 1, ""));
+    }
+
+    @Test
+    void randomEdits() {
+        for (long seed = 1; seed <= 5; seed++) {
+            randomEdits(seed, 600);
+        }
+    }
+
+    private static void randomEdits(long seed, int count) {
+        Random random = new Random(seed);
+        IncrementalParser parser = new IncrementalParser(SOURCE);
+        for (int i = 0; i < count; i++) {
+            String source = parser.source();
+            int length = source.length();
+            int at = position(random, length);
+            String description;
+            switch (random.nextInt(4)) {
+                case 0: {
+                    String snippet = SNIPPETS[random.nextInt(SNIPPETS.length)];
+                    parser.edit(at, at, snippet);
+                    description = "insert " + quote(snippet);
+                    break;
+                }
+                case 1: {
+                    int to = Math.min(length, at + 1 + random.nextInt(8));
+                    parser.edit(at, to, "");
+                    description = "delete to " + to;
+                    break;
+                }
+                case 2: {
+                    // 경계를 깨는 편집을 넣었다가 되돌린다.
+                    String breaker = BREAKERS[random.nextInt(BREAKERS.length)];
+                    parser.edit(at, at, breaker);
+                    assertMatchesFullParse(parser, seed, i, "insert " + quote(breaker), at);
+                    parser.edit(at, at + breaker.length(), "");
+                    assertEquals(source, parser.source());
+                    description = "undo " + quote(breaker);
+                    break;
+                }
+                default:
+                    parser.edit(at, at, "\n");
+                    description = "newline";
+                    break;
+            }
+            assertMatchesFullParse(parser, seed, i, description, at);
+
+            // 소스가 다 지워지면 다시 채운다.
+            if (parser.source().length() < SOURCE.length() / 4)
+                parser.edit(0, 0, SOURCE);
+        }
+    }
+
+    // 처음, 끝, 그 밖의 임의 위치
+    private static int position(Random random, int length) {
+        int pick = random.nextInt(20);
+        if (pick == 0)
+            return 0;
+        if (pick == 1)
+            return length;
+        return random.nextInt(length + 1);
+    }
+
+    private static void assertMatchesFullParse(IncrementalParser parser) {
+        assertMatchesFullParse(parser, 0, 0, "", 0);
+    }
+
+    private static void assertMatchesFullParse(IncrementalParser parser, long seed, int edit,
+                                               String description, int at) {
+        String source = parser.source();
+        List<Stmt> statements = new ArrayList<>();
+        boolean hadError = SInterp.hadSilentError(() -> statements.addAll(
+                new Parser(new Scanner(source.toCharArray(), 0, source.length(), 1)
+                        .scanPacked()).parse()));
+
+        String context = "seed " + seed + ", edit " + edit + " (" + description + " at " + at +
+                ")\n" + source;
+        assertEquals(hadError, parser.hadError(), "error flag differs, " + context);
+        // 에러가 나면 복구 위치에 따라 AST 가 달라지므로 에러 여부만 비교한다.
+        if (!hadError)
+            assertTrue(IncrementalParser.sameTree(statements, parser.statements()),
+                    "tree differs, " + context);
+    }
+
+    private static String quote(String text) {
+        return "\"" + text.replace("\n", "\\n") + "\"";
+    }
+}
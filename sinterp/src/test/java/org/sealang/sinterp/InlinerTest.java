@@ -0,0 +1,87 @@
+package org.sealang.sinterp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 파싱을 미룬 함수 본문도 로드할 때 인라인되는지 확인한다.
+class InlinerTest {
+    // 본문을 LazyBody 로 남길 만큼 토큰을 채운다.
+    private static final String PADDING = "print 0; ".repeat(24);
+
+    private static final String SOURCE = String.join("\n",
+            "fun early(n) { " + PADDING + "return sq(n); }",
+            "fun sq(x) { return x * x; }",
+            "fun late(n) { " + PADDING + "return sq(n) + sq(2); }",
+            "class C { m(n) { " + PADDING + "return sq(n); } }");
+
+    @Test
+    void lazyBodyCallsAreInlined() {
+        assertEquals(0, callsInLoadedBody("late"));
+    }
+
+    @Test
+    void lazyMethodCallsAreInlined() {
+        assertEquals(0, callsInLoadedBody("m"));
+    }
+
+    @Test
+    void lazyBodyDeclaredBeforeCandidateKeepsCall() {
+        // 선언 전 호출의 Undefined variable 에러를 유지해야 한다.
+        assertEquals(1, callsInLoadedBody("early"));
+    }
+
+    @Test
+    void cachedProgramStillInlinesLazyBodies() {
+        Inliner inliner = new Inliner();
+        List<Stmt> statements = parse();
+        inliner.collect(statements);
+        Stmt.Function late = find(statements, "late");
+        LazyBody lazy = (LazyBody) late.body;
+        assertEquals(0, countCalls(inliner.inlineBody(late, lazy, lazy.parse())));
+    }
+
+    private static int callsInLoadedBody(String name) {
+        Inliner inliner = new Inliner();
+        List<Stmt> statements = inliner.inline(parse());
+        Stmt.Function function = find(statements, name);
+        assertTrue(function.body instanceof LazyBody);
+        LazyBody lazy = (LazyBody) function.body;
+        return countCalls(inliner.inlineBody(function, lazy, lazy.parse()));
+    }
+
+    private static List<Stmt> parse() {
+        char[] chars = SOURCE.toCharArray();
+        return new Parser(new Scanner(chars, 0, chars.length, 1).scanPacked(), true).parse();
+    }
+
+    private static Stmt.Function find(List<Stmt> statements, String name) {
+        for (Stmt statement : statements) {
+            if (statement instanceof Stmt.Function &&
+                    ((Stmt.Function) statement).name.lexeme.equals(name))
+                return (Stmt.Function) statement;
+            if (statement instanceof Stmt.Class) {
+                for (Stmt.Function method : ((Stmt.Class) statement).methods) {
+                    if (method.name.lexeme.equals(name))
+                        return method;
+                }
+            }
+        }
+        throw new AssertionError("no function " + name);
+    }
+
+    private static int countCalls(List<Stmt> body) {
+        int[] calls = new int[1];
+        new AstRewriter() {
+            @Override
+            public Expr visitCallExpr(Expr.Call expr) {
+                calls[0]++;
+                return super.visitCallExpr(expr);
+            }
+        }.rewrite(body);
+        return calls[0];
+    }
+}
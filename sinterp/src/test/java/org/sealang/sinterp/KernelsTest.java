@@ -0,0 +1,121 @@
+package org.sealang.sinterp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// SIMD 구현이 스칼라 구현과 같은 결과를 내는지 확인한다. (sum, dot 은 VectorKernels 의 허용 오차 안에서)
+class KernelsTest {
+    private static final int[] LENGTHS = {0, 1, 3, 7, 8, 17, 64, 1001};
+
+    private final VectorKernels scalar = new ScalarKernels();
+    private final Random random = new Random(42);
+
+    @Test
+    void sumWithinTolerance() {
+        VectorKernels simd = simd();
+        for (int length : LENGTHS) {
+            double[] a = values(length);
+            double bound = 0;
+            for (int i = 0; i < length; i++)
+                bound += Math.abs(a[i]);
+            assertClose(scalar.sum(a, length), simd.sum(a, length), length, bound);
+        }
+    }
+
+    @Test
+    void dotWithinTolerance() {
+        VectorKernels simd = simd();
+        for (int length : LENGTHS) {
+            double[] a = values(length);
+            double[] b = values(length);
+            double bound = 0;
+            for (int i = 0; i < length; i++)
+                bound += Math.abs(a[i] * b[i]);
+            assertClose(scalar.dot(a, b, length), simd.dot(a, b, length), length, bound);
+        }
+    }
+
+    @Test
+    void elementwiseKernelsMatchExactly() {
+        VectorKernels simd = simd();
+        for (int length : LENGTHS) {
+            double[] a = values(length);
+            double[] b = values(length);
+
+            double[] expected = a.clone();
+            double[] actual = a.clone();
+            scalar.scale(expected, length, 1.7);
+            simd.scale(actual, length, 1.7);
+            assertTrue(Arrays.equals(expected, actual), "scale " + length);
+
+            scalar.addInto(expected, b, length);
+            simd.addInto(actual, b, length);
+            assertTrue(Arrays.equals(expected, actual), "addInto " + length);
+
+            if (length > 0) {
+                assertEquals(scalar.min(a, length), simd.min(a, length), 0.0);
+                assertEquals(scalar.max(a, length), simd.max(a, length), 0.0);
+            }
+        }
+    }
+
+    @Test
+    void scalingIntegerListByIntegerKeepsItPacked() {
+        SInterpList list = integers(2, 3, 4);
+        NumericNatives.scale(list, 5L);
+        assertTrue(list.longArray() != null);
+        assertEquals(15L, list.get(1));
+
+        // 넘친 원소부터 실수가 된다.
+        SInterpList big = integers(2, Long.MAX_VALUE / 2 + 1);
+        NumericNatives.scale(big, 2L);
+        assertEquals(4L, big.get(0));
+        assertEquals((double) Long.MAX_VALUE + 1, big.get(1));
+    }
+
+    @Test
+    void fillingWithIntegerPacksList() {
+        SInterpList list = new SInterpList(2);
+        list.add(1.5);
+        list.add("x");
+        NumericNatives.fill(list, 7L);
+        assertTrue(list.longArray() != null);
+        assertEquals(7L, list.get(1));
+    }
+
+    private static SInterpList integers(long... values) {
+        SInterpList list = new SInterpList(values.length);
+        for (long value : values)
+            list.add(value);
+        return list;
+    }
+
+    // 덧셈 순서만 다르면 차이는 length * ulp(bound) 를 넘지 않는다.
+    private static void assertClose(double expected, double actual, int length, double bound) {
+        assertEquals(expected, actual, length * Math.ulp(bound), "length " + length);
+    }
+
+    private double[] values(int length) {
+        double[] values = new double[length];
+        for (int i = 0; i < length; i++)
+            values[i] = (random.nextDouble() - 0.5) * 1000;
+        return values;
+    }
+
+    // 모듈이 없으면 (IDE 에서 --add-modules 없이 실행할 때) 건너뛴다.
+    private static VectorKernels simd() {
+        try {
+            return (VectorKernels) Class.forName("org.sealang.sinterp.SimdKernels")
+                    .getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            assumeTrue(false, "jdk.incubator.vector is not available");
+            return null;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.sealang.sinterp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+// 리졸브 뒤에 실행되는 최적화 패스(LoopOptimizer, InstructionFuser)가 실행 결과를 바꾸지 않는지 확인한다.
+class OptimizerTest {
+
+    @Test
+    void hoistingKeepsLocalAssignmentInLoop() {
+        String source = String.join("\n",
+                "var x = 100;",
+                "fun g(n) {",
+                "  var x = 0;",
+                "  var i = 0;",
+                "  while (i < 3) { x = x + n * n; i = i + 1; }",
+                "  return x;",
+                "}",
+                "print g(2);",
+                "print x;");
+        assertEquals("12\n100\n", run(source, true, false));
+        assertEquals(run(source, false, false), run(source, true, false));
+    }
+
+    @Test
+    void hoistingKeepsLocalCompoundAssignmentInLoop() {
+        String source = String.join("\n",
+                "fun g(n) {",
+                "  var x = 0;",
+                "  var i = 0;",
+                "  while (i < 3) { x += n * n; i = i + 1; }",
+                "  return x;",
+                "}",
+                "print g(2);");
+        assertEquals("12\n", run(source, true, false));
+    }
+
+    @Test
+    void fusingKeepsLocalAssignmentOfComparison() {
+        String source = String.join("\n",
+                "var b = \"global\";",
+                "fun h() {",
+                "  var b = false;",
+                "  var i = 5;",
+                "  b = i < 10;",
+                "  return b;",
+                "}",
+                "print h();",
+                "print b;");
+        assertEquals("true\nglobal\n", run(source, false, true));
+    }
+
+    @Test
+    void fusingIncrementsLocalWhoseValueWasRebuilt() {
+        // 끌어올린 피연산자가 있는 대입과 합쳐지는 증가가 같은 루프에 있다.
+        String source = String.join("\n",
+                "var i = 100;",
+                "fun f(n) {",
+                "  var i = 0;",
+                "  var s = 0;",
+                "  while (i < 3) { s = s + n * n; i = i + 1; }",
+                "  return s + i;",
+                "}",
+                "print f(2);",
+                "print i;");
+        assertEquals("15\n100\n", run(source, true, true));
+        assertEquals(run(source, false, false), run(source, true, true));
+    }
+
+    // 파싱, 리졸브, 루프 불변식 끌어올리기(hoist 일 때), 노드 합치기(fuse 일 때)를 거쳐 실행하고
+    // 출력을 돌려준다.
+    private static String run(String source, boolean hoist, boolean fuse) {
+        char[] chars = source.toCharArray();
+        Interpreter interpreter = new Interpreter();
+        List<Stmt> statements = new Parser(
+                new Scanner(chars, 0, chars.length, 1).scanPacked()).parse();
+        Resolver resolver = new Resolver(interpreter);
+        assertFalse(SInterp.hadSilentError(() -> resolver.resolve(statements)));
+        List<Stmt> optimized = hoist ?
+                new LoopOptimizer(interpreter, resolver).optimize(statements) : statements;
+        if (fuse)
+            optimized = new InstructionFuser(interpreter).fuse(optimized);
+
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            interpreter.interpret(optimized);
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}